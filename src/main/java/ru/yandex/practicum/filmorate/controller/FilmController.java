@@ -3,7 +3,10 @@ package ru.yandex.practicum.filmorate.controller;
 
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -14,15 +17,24 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.Completion;
+import ru.yandex.practicum.filmorate.model.CursorPage;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmFacets;
+import ru.yandex.practicum.filmorate.model.FilmFilter;
 import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.storage.film.index.SimilarFilmsIndex;
 
+import java.time.Duration;
 import java.util.List;
+import java.util.Map;
 
 @Slf4j
 @RestController
 @RequestMapping("/films")
 public class FilmController {
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     private final FilmService filmService;
 
     public FilmController(FilmService filmService) {
@@ -30,9 +42,24 @@ public class FilmController {
     }
 
     @GetMapping
-    public List<Film> findAll() {
+    public List<Film> findAll(@RequestParam(value = "genre", required = false) List<Long> genreIds,
+                              @RequestParam(value = "mpa", required = false) List<Integer> mpaIds,
+                              @RequestParam(value = "yearFrom", required = false) Integer yearFrom,
+                              @RequestParam(value = "yearTo", required = false) Integer yearTo,
+                              @RequestParam(value = "director", required = false) List<Long> directorIds,
+                              @RequestParam(value = "matchAll", defaultValue = "false") boolean matchAll) {
         log.info("Retrieving all films");
-        return filmService.findAll();
+        return filmService.findAll(new FilmFilter(genreIds, mpaIds, yearFrom, yearTo, directorIds, matchAll));
+    }
+
+    @GetMapping("/facets")
+    public FilmFacets getFacets(@RequestParam(value = "genre", required = false) List<Long> genreIds,
+                                @RequestParam(value = "mpa", required = false) List<Integer> mpaIds,
+                                @RequestParam(value = "yearFrom", required = false) Integer yearFrom,
+                                @RequestParam(value = "yearTo", required = false) Integer yearTo,
+                                @RequestParam(value = "director", required = false) List<Long> directorIds,
+                                @RequestParam(value = "matchAll", defaultValue = "false") boolean matchAll) {
+        return filmService.getFacets(new FilmFilter(genreIds, mpaIds, yearFrom, yearTo, directorIds, matchAll));
     }
 
     @PostMapping
@@ -65,11 +92,44 @@ public class FilmController {
         filmService.removeLike(id, userId);
     }
 
+    @GetMapping("/{id}/similar")
+    public List<Film> getSimilarFilms(@PathVariable Long id,
+                                      @RequestParam(value = "limit", defaultValue = "10") @Positive Integer limit) {
+        return filmService.getSimilarFilms(id, limit);
+    }
+
+    @GetMapping("/similar/stats")
+    public SimilarFilmsIndex.Stats getSimilarFilmsStats() {
+        return filmService.getSimilarFilmsStats();
+    }
+
+    @GetMapping("/{id}/likes")
+    public ResponseEntity<List<Long>> getLikes(@PathVariable Long id,
+                                               @RequestParam(value = "count", defaultValue = "100") @Positive Integer count,
+                                               @RequestParam(value = "cursor", required = false) String cursor) {
+        return withNextCursor(filmService.getLikes(id, cursor, count));
+    }
+
     @GetMapping("/popular")
-    public List<Film> getPopularFilms(@RequestParam(value = "count", defaultValue = "10") Long count,
-                                      @RequestParam(value = "genreId", defaultValue = "") Long genreId,
-                                      @RequestParam(value = "year", defaultValue = "") Integer year) {
-        return filmService.getPopularFilms(count, genreId, year);
+    public ResponseEntity<List<Film>> getPopularFilms(
+            @RequestParam(value = "count", defaultValue = "10") @Positive Integer count,
+            @RequestParam(value = "genreId", defaultValue = "") Long genreId,
+            @RequestParam(value = "year", defaultValue = "") Integer year,
+            @RequestParam(value = "cursor", required = false) String cursor) {
+        return withNextCursor(filmService.getPopularFilms(count, genreId, year, cursor));
+    }
+
+    @GetMapping("/trending")
+    public List<Film> getTrendingFilms(@RequestParam(value = "window", defaultValue = "24h") String window,
+                                       @RequestParam(value = "genreId", required = false) Long genreId,
+                                       @RequestParam(value = "count", defaultValue = "10") @Positive Integer count) {
+        Duration duration;
+        try {
+            duration = DurationStyle.detectAndParse(window);
+        } catch (IllegalArgumentException e) {
+            throw new ValidationException("Invalid trending window: " + window);
+        }
+        return filmService.getTrendingFilms(duration, genreId, count);
     }
 
     @GetMapping("/common")
@@ -77,23 +137,45 @@ public class FilmController {
         return filmService.getCommonFilms(userId, friendId);
     }
 
+    @GetMapping("/common/friends")
+    public Map<Long, Integer> getCommonFilmCounts(@RequestParam(value = "userId") @Positive Long userId) {
+        return filmService.getCommonFilmCounts(userId);
+    }
+
     @GetMapping("/director/{directorId}")
     public List<Film> getByDirector(@PathVariable int directorId, @RequestParam String sortBy) {
         return filmService.getByDirector(directorId, sortBy);
     }
 
     @GetMapping("/search")
-    public List<Film> search(@RequestParam(value = "query") String query, @RequestParam(value = "by") String by) {
+    public List<Film> search(@RequestParam(value = "query") String query,
+                             @RequestParam(value = "by") String by,
+                             @RequestParam(value = "limit", defaultValue = "100") @Positive Integer limit,
+                             @RequestParam(value = "offset", defaultValue = "0") @PositiveOrZero Integer offset) {
         switch (by) {
             case "title":
-                return filmService.searchByTitle(query);
+                return filmService.search(query, true, false, limit, offset);
             case "director":
-                return filmService.searchByDirector(query);
+                return filmService.search(query, false, true, limit, offset);
             case "title,director":
             case "director,title":
-                return filmService.serchByTitleAndDirector(query);
+                return filmService.search(query, true, true, limit, offset);
             default:
                 throw new ValidationException("Invalid parameter value");
         }
     }
+
+    @GetMapping("/autocomplete")
+    public List<Completion> autocomplete(@RequestParam(value = "prefix") String prefix,
+                                         @RequestParam(value = "limit", defaultValue = "10") @Positive Integer limit) {
+        return filmService.autocomplete(prefix, limit);
+    }
+
+    private static <T> ResponseEntity<List<T>> withNextCursor(CursorPage<T> page) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.nextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.nextCursor());
+        }
+        return response.body(page.items());
+    }
 }
@@ -1,6 +1,7 @@
 package ru.yandex.practicum.filmorate.controller;
 
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Positive;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.validation.annotation.Validated;
@@ -57,6 +58,13 @@ public class ReviewController {
         return reviewService.getReviewsByFilm(filmId, count);
     }
 
+    @GetMapping("/search")
+    public List<Review> search(@RequestParam(name = "q") String query,
+                               @RequestParam(name = "filmId", required = false) Long filmId,
+                               @RequestParam(name = "limit", defaultValue = "10") @Positive Integer limit) {
+        return reviewService.search(query, filmId, limit);
+    }
+
     @PutMapping("/{id}/like/{userId}")
     public void addLike(@PathVariable("id") Long reviewId, @PathVariable("userId") Long userId) {
         reviewService.addLike(reviewId, userId);
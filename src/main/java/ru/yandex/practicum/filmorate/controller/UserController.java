@@ -4,6 +4,7 @@ import jakarta.validation.Valid;
 import jakarta.validation.constraints.Positive;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -11,21 +12,30 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.CursorPage;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.model.event.Event;
+import ru.yandex.practicum.filmorate.model.event.EventType;
 import ru.yandex.practicum.filmorate.service.FeedService;
 import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.feed.FeedEventWriter;
+import ru.yandex.practicum.filmorate.storage.film.index.RecommendationCache;
+import ru.yandex.practicum.filmorate.storage.user.index.InfluenceRanker;
 
 import java.util.List;
+import java.util.Set;
 
 @Slf4j
 @RestController
 @RequiredArgsConstructor
 @RequestMapping("/users")
 public class UserController {
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     private final UserService userService;
     private final FeedService feedService;
 
@@ -65,6 +75,14 @@ public class UserController {
         return userService.getFriends(id);
     }
 
+    @GetMapping("/{id}/friends/suggestions")
+    public List<User> getFriendSuggestions(@PathVariable @Positive Long id,
+                                           @RequestParam(value = "limit", defaultValue = "10") @Positive Integer limit,
+                                           @RequestParam(value = "boostByLikes", defaultValue = "false")
+                                           boolean boostByLikes) {
+        return userService.getFriendSuggestions(id, limit, boostByLikes);
+    }
+
     @GetMapping("/{id}")
     public User getUser(@PathVariable Long id) {
         return userService.getUser(id);
@@ -75,14 +93,57 @@ public class UserController {
         return userService.getSameFriends(id, targetId);
     }
 
+    @GetMapping("/{id}/similar")
+    public List<User> getSimilarUsers(@PathVariable @Positive Long id,
+                                      @RequestParam(value = "limit", defaultValue = "10") @Positive Integer limit) {
+        return userService.getSimilarUsers(id, limit);
+    }
+
+    @GetMapping("/top-influencers")
+    public List<User> getTopInfluencers(@RequestParam(value = "count", defaultValue = "10") @Positive Integer count) {
+        return userService.getTopInfluencers(count);
+    }
+
+    @GetMapping("/influence/stats")
+    public InfluenceRanker.Stats getInfluenceStats() {
+        return userService.getInfluenceStats();
+    }
+
+    @GetMapping("/feed/stats")
+    public FeedEventWriter.Stats getFeedWriterStats() {
+        return feedService.getWriterStats();
+    }
+
+    @GetMapping("/recommendations/stats")
+    public RecommendationCache.Stats getRecommendationCacheStats() {
+        return userService.getRecommendationCacheStats();
+    }
+
     @GetMapping("/{id}/recommendations")
-    public List<Film> getRecommendations(@PathVariable @Positive Long id) {
-        return userService.getRecommendations(id);
+    public List<Film> getRecommendations(@PathVariable @Positive Long id,
+                                         @RequestParam(value = "count", defaultValue = "10") @Positive Integer count,
+                                         @RequestParam(value = "model", required = false) String model,
+                                         @RequestParam(value = "source", required = false) String source) {
+        return userService.getRecommendations(id, count, model, source);
     }
 
     @GetMapping("/{id}/feed")
-    public List<Event> getFeed(@PathVariable @Positive Long id) {
+    public ResponseEntity<List<Event>> getFeed(
+            @PathVariable @Positive Long id,
+            @RequestParam(value = "full", defaultValue = "false") boolean full,
+            @RequestParam(value = "limit", defaultValue = "50") @Positive Integer limit,
+            @RequestParam(value = "before", required = false) Long before,
+            @RequestParam(value = "since", required = false) Long since,
+            @RequestParam(value = "types", required = false) Set<EventType> types) {
         userService.getUser(id);
-        return feedService.getUserEvents(id);
+        if (full) {
+            return ResponseEntity.ok(feedService.getUserEvents(id));
+        }
+        CursorPage<Event> page = feedService.getUserEvents(id, before, since, types, limit);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.nextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.nextCursor());
+        }
+        return response.body(page.items());
     }
 }
@@ -1,81 +1,94 @@
 package ru.yandex.practicum.filmorate.mapper;
 
-import org.springframework.jdbc.core.ResultSetExtractor;
+import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 
-import ru.yandex.practicum.filmorate.model.Director;
 import ru.yandex.practicum.filmorate.model.Film;
-import ru.yandex.practicum.filmorate.model.Genre;
-import ru.yandex.practicum.filmorate.model.Mpa;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.ArrayList;
-import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
-import java.util.List;
 import java.util.Map;
 
 import static ru.yandex.practicum.filmorate.util.DateUtil.toLocalDate;
 
+/**
+ * Decodes film, film-genre and film-director result sets in one pass each.
+ * Column indexes are resolved once per result set, and MPA, genre and director values
+ * are the canonical instances from the {@link ReferenceDictionary}.
+ */
 @Component
-public class FilmMapper implements ResultSetExtractor<List<Film>> {
-    @Override
-    public List<Film> extractData(ResultSet rs) throws SQLException {
-        Map<Long, Film> filmMap = new LinkedHashMap<>();
+@RequiredArgsConstructor
+public class FilmMapper {
+    private final ReferenceDictionary references;
 
+    public Void extractFilms(ResultSet rs, Map<Long, Film> films) throws SQLException {
+        int id = rs.findColumn("film_id");
+        int name = rs.findColumn("film_name");
+        int description = rs.findColumn("film_description");
+        int duration = rs.findColumn("film_duration");
+        int releaseDate = rs.findColumn("film_releaseDate");
+        int mpaId = rs.findColumn("mpa_id");
+        int mpaName = rs.findColumn("mpa_name");
+        int likeCount = rs.findColumn("like_count");
         while (rs.next()) {
-            Long filmId = rs.getLong("film_id");
-            Film film = filmMap.computeIfAbsent(filmId, id -> createFilm(rs));
-
-            addGenreIfPresent(rs, film);
-            addLikeIfPresent(rs, film);
-            addDirectorIfPresent(rs, film);
-        }
-        return new ArrayList<>(filmMap.values());
-    }
-
-    private Film createFilm(ResultSet rs) {
-        try {
-            Mpa mpa = new Mpa(rs.getInt("mpa_id"), rs.getString("mpa_name"));
-            return Film.builder()
-                    .id(rs.getLong("film_id"))
-                    .name(rs.getString("film_name"))
-                    .description(rs.getString("film_description"))
-                    .duration(rs.getLong("film_duration"))
-                    .releaseDate(toLocalDate(rs.getDate("film_releaseDate")))
-                    .mpa(mpa)
+            Film film = Film.builder()
+                    .id(rs.getLong(id))
+                    .name(rs.getString(name))
+                    .description(rs.getString(description))
+                    .duration(rs.getLong(duration))
+                    .releaseDate(toLocalDate(rs.getDate(releaseDate)))
+                    .mpa(references.mpa(rs.getInt(mpaId), rs.getString(mpaName)))
+                    .likeCount(rs.getLong(likeCount))
                     .genres(new LinkedHashSet<>())
-                    .likes(new LinkedHashSet<>())
                     .directors(new LinkedHashSet<>())
                     .build();
-        } catch (SQLException e) {
-            throw new RuntimeException("Error creating Film object from ResultSet", e);
+            films.put(film.getId(), film);
         }
+        return null;
     }
 
-    private void addGenreIfPresent(ResultSet rs, Film film) throws SQLException {
-        int genreId = rs.getInt("genre_id");
-        if (!rs.wasNull()) {
-            String genreName = rs.getString("genre_name");
-            Genre genre = new Genre(genreId, genreName);
-            film.getGenres().add(genre);
-        }
-    }
-
-    private void addLikeIfPresent(ResultSet rs, Film film) throws SQLException {
-        Long likeUserId = rs.getLong("like_user_id");
-        if (!rs.wasNull()) {
-            film.getLikes().add(likeUserId);
+    /**
+     * Expects rows ordered by film_id, so the owning film is looked up only when the id changes.
+     */
+    public Void extractGenres(ResultSet rs, Map<Long, Film> films) throws SQLException {
+        int filmId = rs.findColumn("film_id");
+        int genreId = rs.findColumn("genre_id");
+        int genreName = rs.findColumn("genre_name");
+        long currentId = 0;
+        Film current = null;
+        while (rs.next()) {
+            long id = rs.getLong(filmId);
+            if (current == null || id != currentId) {
+                currentId = id;
+                current = films.get(id);
+            }
+            if (current != null) {
+                current.getGenres().add(references.genre(rs.getInt(genreId), rs.getString(genreName)));
+            }
         }
+        return null;
     }
 
-    private void addDirectorIfPresent(ResultSet rs, Film film) throws SQLException {
-        Long directorId = rs.getLong("director_id");
-        if (!rs.wasNull()) {
-            String directorName = rs.getString("director_name");
-            Director director = new Director(directorId, directorName);
-            film.getDirectors().add(director);
+    /**
+     * Expects rows ordered by film_id, so the owning film is looked up only when the id changes.
+     */
+    public Void extractDirectors(ResultSet rs, Map<Long, Film> films) throws SQLException {
+        int filmId = rs.findColumn("film_id");
+        int directorId = rs.findColumn("director_id");
+        int directorName = rs.findColumn("director_name");
+        long currentId = 0;
+        Film current = null;
+        while (rs.next()) {
+            long id = rs.getLong(filmId);
+            if (current == null || id != currentId) {
+                currentId = id;
+                current = films.get(id);
+            }
+            if (current != null) {
+                current.getDirectors().add(references.director(rs.getLong(directorId), rs.getString(directorName)));
+            }
         }
+        return null;
     }
 }
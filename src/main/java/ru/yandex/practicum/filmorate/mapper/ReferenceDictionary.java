@@ -0,0 +1,66 @@
+package ru.yandex.practicum.filmorate.mapper;
+
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Canonical MPA, genre and director instances by id, shared by every film built from the database.
+ * An instance is replaced only when a row comes back with a different name, e.g. after a director rename.
+ */
+@Component
+public class ReferenceDictionary {
+    private final Map<Integer, Mpa> mpa = new ConcurrentHashMap<>();
+    private final Map<Integer, Genre> genres = new ConcurrentHashMap<>();
+    private final Map<Long, Director> directors = new ConcurrentHashMap<>();
+
+    public Mpa mpa(int id, String name) {
+        Mpa current = mpa.get(id);
+        if (current != null && Objects.equals(current.getName(), name)) {
+            return current;
+        }
+        Mpa canonical = new Mpa(id, name);
+        mpa.put(id, canonical);
+        return canonical;
+    }
+
+    public Genre genre(int id, String name) {
+        Genre current = genres.get(id);
+        if (current != null && Objects.equals(current.getName(), name)) {
+            return current;
+        }
+        Genre canonical = new Genre(id, name);
+        genres.put(id, canonical);
+        return canonical;
+    }
+
+    public Director director(long id, String name) {
+        Director current = directors.get(id);
+        if (current != null && Objects.equals(current.getName(), name)) {
+            return current;
+        }
+        Director canonical = new Director(id, name);
+        directors.put(id, canonical);
+        return canonical;
+    }
+
+    public Mpa mpa(int id) {
+        Mpa current = mpa.get(id);
+        return current == null ? new Mpa(id) : current;
+    }
+
+    public Genre genre(int id) {
+        Genre current = genres.get(id);
+        return current == null ? new Genre(id, null) : current;
+    }
+
+    public Director director(long id) {
+        Director current = directors.get(id);
+        return current == null ? new Director(id, null) : current;
+    }
+}
@@ -15,6 +15,7 @@ public class UserMapper {
                 .login(rs.getString("user_login"))
                 .email(rs.getString("user_email"))
                 .birthday(toLocalDate(rs.getDate("user_birthday")))
+                .influence(rs.getDouble("influence"))
                 .build();
     }
 }
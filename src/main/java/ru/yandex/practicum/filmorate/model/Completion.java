@@ -0,0 +1,8 @@
+package ru.yandex.practicum.filmorate.model;
+
+public record Completion(Type type, Long id, String name) {
+    public enum Type {
+        FILM,
+        DIRECTOR
+    }
+}
@@ -9,12 +9,11 @@ import ru.yandex.practicum.filmorate.controller.validation.film.releasedate.Film
 
 import java.time.LocalDate;
 import java.util.LinkedHashSet;
-import java.util.Set;
 
 /**
  * Film.
  */
-@Builder
+@Builder(toBuilder = true)
 @Data
 public class Film {
     private Long id;
@@ -26,7 +25,7 @@ public class Film {
     private LocalDate releaseDate;
     @Positive(message = "Value must be positive")
     private Long duration;
-    private Set<Long> likes;
+    private Long likeCount;
     private LinkedHashSet<Genre> genres;
     private Mpa mpa;
     private LinkedHashSet<Director> directors;
@@ -0,0 +1,10 @@
+package ru.yandex.practicum.filmorate.model;
+
+import java.util.Map;
+
+public record FilmFacets(int total,
+                         Map<Long, Integer> genres,
+                         Map<Integer, Integer> mpa,
+                         Map<Integer, Integer> years,
+                         Map<Long, Integer> directors) {
+}
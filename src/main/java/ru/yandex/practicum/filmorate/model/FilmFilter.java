@@ -0,0 +1,18 @@
+package ru.yandex.practicum.filmorate.model;
+
+import java.util.List;
+
+/**
+ * Film list filter: values inside one facet are OR-ed (or AND-ed for genres and directors
+ * when matchAll is set), different facets are always AND-ed.
+ */
+public record FilmFilter(List<Long> genreIds,
+                         List<Integer> mpaIds,
+                         Integer yearFrom,
+                         Integer yearTo,
+                         List<Long> directorIds,
+                         boolean matchAll) {
+    public boolean isEmpty() {
+        return genreIds == null && mpaIds == null && yearFrom == null && yearTo == null && directorIds == null;
+    }
+}
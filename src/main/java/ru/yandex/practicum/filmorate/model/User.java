@@ -24,5 +24,6 @@ public class User {
     @Past(message = "Date of birth cannot be in the future")
     private LocalDate birthday;
     private Set<Long> friends;
+    private Double influence;
 }
 
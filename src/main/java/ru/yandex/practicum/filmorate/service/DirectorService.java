@@ -4,6 +4,7 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.model.Director;
 import ru.yandex.practicum.filmorate.storage.director.DirectorStorage;
+import ru.yandex.practicum.filmorate.storage.film.index.DirectorChangeListener;
 
 import java.util.List;
 
@@ -11,6 +12,7 @@ import java.util.List;
 @RequiredArgsConstructor
 public class DirectorService {
     private final DirectorStorage directorStorage;
+    private final List<DirectorChangeListener> directorChangeListeners;
 
     public List<Director> getAll() {
         return directorStorage.getAll();
@@ -21,16 +23,21 @@ public class DirectorService {
     }
 
     public Director create(Director director) {
-        return directorStorage.create(director);
+        Director created = directorStorage.create(director);
+        directorChangeListeners.forEach(listener -> listener.onDirectorSaved(created));
+        return created;
     }
 
     public Director update(Director director) {
         getById(director.getId());
-        return directorStorage.update(director);
+        Director updated = directorStorage.update(director);
+        directorChangeListeners.forEach(listener -> listener.onDirectorSaved(updated));
+        return updated;
     }
 
     public void delete(int directorId) {
         directorStorage.delete(directorId);
+        directorChangeListeners.forEach(listener -> listener.onDirectorDeleted((long) directorId));
     }
 
 }
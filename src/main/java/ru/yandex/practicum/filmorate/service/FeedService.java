@@ -2,19 +2,29 @@ package ru.yandex.practicum.filmorate.service;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.yandex.practicum.filmorate.model.CursorPage;
 import ru.yandex.practicum.filmorate.model.event.Event;
 import ru.yandex.practicum.filmorate.model.event.EventType;
 import ru.yandex.practicum.filmorate.model.event.OperationType;
+import ru.yandex.practicum.filmorate.storage.feed.FeedEventWriter;
 import ru.yandex.practicum.filmorate.storage.feed.FeedStorage;
 
 import java.time.Instant;
 import java.util.List;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
 public class FeedService {
     private final FeedStorage feedStorage;
+    private final FeedEventWriter feedEventWriter;
 
+    /**
+     * Queues the event for writing. Inside a transaction it is queued only once the transaction commits,
+     * so a rolled-back change never shows up in the feed.
+     */
     public void createEvent(Long userId, EventType eventType, OperationType operation, Long entityId) {
         Event event = Event.builder()
                 .timestamp(Instant.now().toEpochMilli())
@@ -23,11 +33,28 @@ public class FeedService {
                 .operation(operation)
                 .entityId(entityId)
                 .build();
-        feedStorage.create(event);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    feedEventWriter.write(event);
+                }
+            });
+        } else {
+            feedEventWriter.write(event);
+        }
     }
 
     public List<Event> getUserEvents(Long userId) {
         return feedStorage.get(userId);
     }
 
+    public FeedEventWriter.Stats getWriterStats() {
+        return feedEventWriter.getStats();
+    }
+
+    public CursorPage<Event> getUserEvents(Long userId, Long before, Long since, Set<EventType> types, int limit) {
+        return feedStorage.getPage(userId, before, since, types, limit);
+    }
+
 }
@@ -2,14 +2,31 @@ package ru.yandex.practicum.filmorate.service;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.Completion;
+import ru.yandex.practicum.filmorate.model.CursorPage;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmFacets;
+import ru.yandex.practicum.filmorate.model.FilmFilter;
 import ru.yandex.practicum.filmorate.model.event.EventType;
 import ru.yandex.practicum.filmorate.model.event.OperationType;
 import ru.yandex.practicum.filmorate.storage.director.DirectorStorage;
 import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.index.AutocompleteIndex;
+import ru.yandex.practicum.filmorate.storage.film.index.FilmChangeListener;
+import ru.yandex.practicum.filmorate.storage.film.index.FilmFilterIndex;
+import ru.yandex.practicum.filmorate.storage.film.index.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.storage.film.index.PopularityIndex;
+import ru.yandex.practicum.filmorate.storage.film.index.SimilarFilmsIndex;
+import ru.yandex.practicum.filmorate.storage.film.index.TrendingIndex;
+import ru.yandex.practicum.filmorate.storage.film.index.UserLikesIndex;
 import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+import ru.yandex.practicum.filmorate.storage.user.index.FriendGraph;
 
+import java.time.Duration;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
@@ -18,31 +35,54 @@ public class FilmService {
     private final UserStorage userStorageDb;
     private final DirectorStorage directorStorage;
     private final FeedService feedService;
+    private final PopularityIndex popularityIndex;
+    private final TrendingIndex trendingIndex;
+    private final FilmSearchIndex filmSearchIndex;
+    private final AutocompleteIndex autocompleteIndex;
+    private final FilmFilterIndex filmFilterIndex;
+    private final UserLikesIndex userLikesIndex;
+    private final SimilarFilmsIndex similarFilmsIndex;
+    private final FriendGraph friendGraph;
+    private final List<FilmChangeListener> filmChangeListeners;
 
     public Film getFilm(Long id) {
         return filmStorageDb.getFilmById(id);
     }
 
     public Film create(Film film) {
-        return filmStorageDb.create(film);
+        Film created = filmStorageDb.create(film);
+        filmChangeListeners.forEach(listener -> listener.onFilmSaved(created));
+        return created;
     }
 
     public Film update(Film film) {
-        return filmStorageDb.update(film);
+        Film updated = filmStorageDb.update(film);
+        filmChangeListeners.forEach(listener -> listener.onFilmSaved(updated));
+        return updated;
     }
 
     public void delete(Long id) {
         filmStorageDb.delete(id);
+        filmChangeListeners.forEach(listener -> listener.onFilmDeleted(id));
     }
 
 
-    public List<Film> findAll() {
-        return filmStorageDb.findAll();
+    public List<Film> findAll(FilmFilter filter) {
+        if (filter.isEmpty()) {
+            return filmStorageDb.findAll();
+        }
+        return filmStorageDb.getFilmsByIds(filmFilterIndex.filter(filter));
+    }
+
+    public FilmFacets getFacets(FilmFilter filter) {
+        return filmFilterIndex.facets(filter);
     }
 
     public void addLike(Long filmId, Long userId) {
         userStorageDb.getUserById(userId);
-        filmStorageDb.addLike(filmId, userId);
+        if (filmStorageDb.addLike(filmId, userId)) {
+            filmChangeListeners.forEach(listener -> listener.onLikeAdded(filmId, userId));
+        }
         feedService.createEvent(
                 userId,
                 EventType.LIKE,
@@ -53,7 +93,8 @@ public class FilmService {
 
     public void removeLike(Long filmId, Long userId) {
         userStorageDb.getUserById(userId);
-        filmStorageDb.deleteLike(filmId, userId);
+        filmStorageDb.deleteLike(filmId, userId).ifPresent(likedAt ->
+                filmChangeListeners.forEach(listener -> listener.onLikeRemoved(filmId, userId, likedAt)));
         feedService.createEvent(
                 userId,
                 EventType.LIKE,
@@ -62,14 +103,38 @@ public class FilmService {
         );
     }
 
-    public List<Film> getPopularFilms(Long count, Long genreId, Integer year) {
-        return filmStorageDb.getPopularFilms(count, genreId, year);
+    public List<Film> getSimilarFilms(Long filmId, int limit) {
+        filmStorageDb.getFilmById(filmId);
+        return filmStorageDb.getFilmsByIds(similarFilmsIndex.getSimilar(filmId, limit));
+    }
+
+    public SimilarFilmsIndex.Stats getSimilarFilmsStats() {
+        return similarFilmsIndex.getStats();
+    }
+
+    public CursorPage<Long> getLikes(Long filmId, String cursor, int count) {
+        return filmStorageDb.getLikes(filmId, cursor, count);
+    }
+
+    public CursorPage<Film> getPopularFilms(int count, Long genreId, Integer year, String cursor) {
+        CursorPage<Long> top = popularityIndex.getTop(genreId, year, count, cursor);
+        return new CursorPage<>(filmStorageDb.getFilmsByIds(top.items()), top.nextCursor());
+    }
+
+    public List<Film> getTrendingFilms(Duration window, Long genreId, int count) {
+        if (window.isNegative() || window.isZero() || window.compareTo(TrendingIndex.MAX_WINDOW) > 0) {
+            throw new ValidationException("Trending window must be between 1 hour and " + TrendingIndex.MAX_WINDOW);
+        }
+        return filmStorageDb.getFilmsByIds(trendingIndex.getTrending(window, genreId, count));
     }
 
     public List<Film> getCommonFilms(Long userId, Long friendId) {
-        userStorageDb.getUserById(userId);
-        userStorageDb.getUserById(friendId);
-        return filmStorageDb.getCommonFilms(userId, friendId);
+        return filmStorageDb.getFilmsByIds(userLikesIndex.getCommon(userId, friendId));
+    }
+
+    public Map<Long, Integer> getCommonFilmCounts(Long userId) {
+        List<Long> friendIds = Arrays.stream(friendGraph.getFriends(userId)).boxed().toList();
+        return userLikesIndex.getCommonCounts(userId, friendIds);
     }
 
     public List<Film> getByDirector(int directorId, String sortBy) {
@@ -77,15 +142,11 @@ public class FilmService {
         return filmStorageDb.getByDirector(directorId, sortBy);
     }
 
-    public List<Film> searchByTitle(String query) {
-        return filmStorageDb.searchByTitle(query);
-    }
-
-    public List<Film> searchByDirector(String query) {
-        return filmStorageDb.searchByDirector(query);
+    public List<Film> search(String query, boolean byTitle, boolean byDirector, int limit, int offset) {
+        return filmStorageDb.getFilmsByIds(filmSearchIndex.search(query, byTitle, byDirector, limit, offset));
     }
 
-    public List<Film> serchByTitleAndDirector(String query) {
-        return filmStorageDb.searchByTitleAndDirector(query);
+    public List<Completion> autocomplete(String prefix, int limit) {
+        return autocompleteIndex.complete(prefix, Math.min(limit, AutocompleteIndex.TOP_N));
     }
 }
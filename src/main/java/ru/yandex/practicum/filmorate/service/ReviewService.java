@@ -8,9 +8,12 @@ import ru.yandex.practicum.filmorate.model.Review;
 import ru.yandex.practicum.filmorate.model.event.EventType;
 import ru.yandex.practicum.filmorate.model.event.OperationType;
 import ru.yandex.practicum.filmorate.storage.review.ReviewStorageDb;
+import ru.yandex.practicum.filmorate.storage.review.index.ReviewSearchIndex;
 
 import java.util.Comparator;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Slf4j
 @RequiredArgsConstructor
@@ -18,9 +21,11 @@ import java.util.List;
 public class ReviewService {
     private final ReviewStorageDb reviewStorageDb;
     private final FeedService feedService;
+    private final ReviewSearchIndex reviewSearchIndex;
 
     public Review create(Review review) {
         Review result = reviewStorageDb.create(review);
+        reviewSearchIndex.refresh(result.getReviewId());
         feedService.createEvent(
                 review.getUserId(),
                 EventType.REVIEW,
@@ -32,6 +37,7 @@ public class ReviewService {
 
     public Review update(Review review) {
         Review result = reviewStorageDb.update(review);
+        reviewSearchIndex.refresh(result.getReviewId());
         feedService.createEvent(
                 result.getUserId(),
                 EventType.REVIEW,
@@ -50,6 +56,7 @@ public class ReviewService {
                 id
         );
         reviewStorageDb.remove(id);
+        reviewSearchIndex.refresh(id);
     }
 
     public List<Review> findAll() {
@@ -69,17 +76,31 @@ public class ReviewService {
 
     public void addLike(Long reviewId, Long userId) {
         reviewStorageDb.addLike(reviewId, userId);
+        reviewSearchIndex.refresh(reviewId);
     }
 
     public void addDislike(Long reviewId, Long userId) {
         reviewStorageDb.addDislike(reviewId, userId);
+        reviewSearchIndex.refresh(reviewId);
     }
 
     public void removeLike(Long reviewId, Long userId) {
         reviewStorageDb.removeReactionFromReview(reviewId, userId);
+        reviewSearchIndex.refresh(reviewId);
     }
 
     public void removeDislike(Long reviewId, Long userId) {
         reviewStorageDb.removeReactionFromReview(reviewId, userId);
+        reviewSearchIndex.refresh(reviewId);
+    }
+
+    public List<Review> search(String query, Long filmId, int limit) {
+        List<Long> ids = reviewSearchIndex.search(query, filmId, limit);
+        List<Review> reviews = reviewStorageDb.getReviewsByIds(ids);
+        if (reviews.size() < ids.size()) {
+            Set<Long> found = reviews.stream().map(Review::getReviewId).collect(Collectors.toSet());
+            ids.stream().filter(id -> !found.contains(id)).forEach(reviewSearchIndex::refresh);
+        }
+        return reviews;
     }
 }
@@ -3,13 +3,29 @@ package ru.yandex.practicum.filmorate.service;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.model.event.EventType;
 import ru.yandex.practicum.filmorate.model.event.OperationType;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.index.FilmChangeListener;
+import ru.yandex.practicum.filmorate.storage.film.index.ItemSimilarityIndex;
+import ru.yandex.practicum.filmorate.storage.film.index.MatrixFactorizationModel;
+import ru.yandex.practicum.filmorate.storage.film.index.RecommendationCache;
+import ru.yandex.practicum.filmorate.storage.film.index.SocialRecommender;
+import ru.yandex.practicum.filmorate.storage.film.index.UserLikesIndex;
 import ru.yandex.practicum.filmorate.storage.user.UserStorageDb;
+import ru.yandex.practicum.filmorate.storage.user.index.FriendGraph;
+import ru.yandex.practicum.filmorate.storage.user.index.FriendSuggester;
+import ru.yandex.practicum.filmorate.storage.user.index.InfluenceRanker;
+import ru.yandex.practicum.filmorate.storage.user.index.UserSimilarityIndex;
 
+import java.time.Instant;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 
 @Slf4j
 @Service
@@ -17,6 +33,17 @@ import java.util.List;
 public class UserService {
     private final UserStorageDb userStorageDb;
     private final FeedService feedService;
+    private final FilmStorage filmStorage;
+    private final List<FilmChangeListener> filmChangeListeners;
+    private final UserLikesIndex userLikesIndex;
+    private final ItemSimilarityIndex itemSimilarityIndex;
+    private final MatrixFactorizationModel matrixFactorizationModel;
+    private final SocialRecommender socialRecommender;
+    private final FriendGraph friendGraph;
+    private final FriendSuggester friendSuggester;
+    private final InfluenceRanker influenceRanker;
+    private final RecommendationCache recommendationCache;
+    private final UserSimilarityIndex userSimilarityIndex;
 
     public User getUser(Long id) {
         return userStorageDb.getUserById(id);
@@ -27,11 +54,19 @@ public class UserService {
     }
 
     public User create(User user) {
-        return userStorageDb.create(user);
+        User created = userStorageDb.create(user);
+        friendGraph.addUser(created.getId());
+        return created;
     }
 
     public void delete(Long id) {
+        Map<Long, Instant> likes = filmStorage.getLikeTimes(id);
         userStorageDb.delete(id);
+        likes.forEach((filmId, likedAt) ->
+                filmChangeListeners.forEach(listener -> listener.onLikeRemoved(filmId, id, likedAt)));
+        userLikesIndex.evict(id);
+        friendGraph.removeUser(id);
+        recommendationCache.invalidate(id);
     }
 
     public User update(User user) {
@@ -40,25 +75,81 @@ public class UserService {
 
     public void addFriend(Long userId, Long targetId) {
         userStorageDb.addFriend(userId, targetId);
+        friendGraph.addFriend(userId, targetId);
         feedService.createEvent(userId, EventType.FRIEND, OperationType.ADD, targetId);
         log.info("Friend added successfully");
     }
 
     public void removeFriend(Long userId, Long targetId) {
         userStorageDb.removeFriend(userId, targetId);
+        friendGraph.removeFriend(userId, targetId);
         feedService.createEvent(userId, EventType.FRIEND, OperationType.REMOVE, targetId);
         log.info("Friend removed successfully");
     }
 
     public List<User> getSameFriends(Long userId, Long targetId) {
-        return userStorageDb.getSameFriends(userId, targetId);
+        requireUser(userId);
+        requireUser(targetId);
+        return hydrate(friendGraph.getCommonFriends(userId, targetId));
     }
 
     public List<User> getFriends(Long id) {
-        return userStorageDb.getUserFriends(id);
+        requireUser(id);
+        return hydrate(friendGraph.getFriends(id));
     }
 
-    public List<Film> getRecommendations(Long userId) {
-        return userStorageDb.getRecommendations(userId);
+    public List<User> getFriendSuggestions(Long userId, int limit, boolean boostByLikes) {
+        requireUser(userId);
+        return userStorageDb.getUsersByIds(friendSuggester.suggest(userId, limit, boostByLikes));
+    }
+
+    public List<User> getTopInfluencers(int count) {
+        return userStorageDb.getTopInfluencers(count);
+    }
+
+    public InfluenceRanker.Stats getInfluenceStats() {
+        return influenceRanker.getStats();
+    }
+
+    public List<User> getSimilarUsers(Long userId, int limit) {
+        userStorageDb.getUserById(userId);
+        return userStorageDb.getUsersByIds(userSimilarityIndex.getSimilar(userId, limit));
+    }
+
+    public List<Film> getRecommendations(Long userId, int count, String model, String source) {
+        String variant = count + ":" + model + ":" + source;
+        List<Long> ids = recommendationCache.get(userId, variant, () -> recommend(userId, count, model, source));
+        return filmStorage.getFilmsByIds(ids);
+    }
+
+    public RecommendationCache.Stats getRecommendationCacheStats() {
+        return recommendationCache.getStats();
+    }
+
+    private void requireUser(Long id) {
+        if (!friendGraph.exists(id)) {
+            throw new NotFoundException("User id = " + id + " not found");
+        }
+    }
+
+    private List<User> hydrate(long[] ids) {
+        return userStorageDb.getUsersByIds(Arrays.stream(ids).boxed().toList());
+    }
+
+    private List<Long> recommend(Long userId, int count, String model, String source) {
+        List<Long> ids;
+        if ("friends".equals(source)) {
+            ids = socialRecommender.recommend(userId, count);
+        } else if (source != null) {
+            throw new ValidationException("Unknown recommendation source: " + source);
+        } else if (model == null) {
+            ids = itemSimilarityIndex.recommend(userId, count);
+        } else if ("mf".equals(model)) {
+            ids = matrixFactorizationModel.recommend(userId, itemSimilarityIndex.getLikedFilms(userId), count)
+                    .orElseGet(() -> itemSimilarityIndex.recommend(userId, count));
+        } else {
+            throw new ValidationException("Unknown recommendation model: " + model);
+        }
+        return ids;
     }
 }
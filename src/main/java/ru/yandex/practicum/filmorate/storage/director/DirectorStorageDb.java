@@ -8,6 +8,7 @@ import org.springframework.stereotype.Repository;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.mapper.DirectorMapper;
 import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.storage.film.FilmCache;
 
 import java.sql.PreparedStatement;
 import java.util.List;
@@ -19,6 +20,7 @@ import java.util.Optional;
 @Slf4j
 public class DirectorStorageDb implements DirectorStorage {
     private final JdbcTemplate jdbcTemplate;
+    private final FilmCache filmCache;
 
     @Override
     public List<Director> getAll() {
@@ -74,6 +76,7 @@ public class DirectorStorageDb implements DirectorStorage {
                 WHERE director_id = ?
                 """;
         jdbcTemplate.update(sqlQuery, director.getName(), director.getId());
+        filmCache.invalidateAll();
 
         return director;
     }
@@ -82,5 +85,6 @@ public class DirectorStorageDb implements DirectorStorage {
     public void delete(int id) {
         String sqlQuery = "DELETE FROM directors WHERE director_id = ?";
         jdbcTemplate.update(sqlQuery, id);
+        filmCache.invalidateAll();
     }
 }
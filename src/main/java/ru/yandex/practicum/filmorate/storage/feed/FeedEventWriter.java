@@ -0,0 +1,216 @@
+package ru.yandex.practicum.filmorate.storage.feed;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.event.Event;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Write-behind buffer for feed events. Callers put events on a bounded queue; a single background thread takes
+ * the first waiting event, gathers more for up to the flush interval or until the batch is full, and inserts
+ * them as one JDBC batch. In {@link Durability#WAIT_FOR_FLUSH} mode, the default, the caller waits until its event
+ * is written and sees any failure, so a feed read right after the write finds the event; the opt-in
+ * {@link Durability#FIRE_AND_FORGET} returns at once and gives that up. Both waits, for queue space
+ * and for the flush, are bounded by the wait timeout: an event that finds the queue still full is written by the
+ * caller itself, and a flush that takes longer is left to finish in the background.
+ * If a batch fails, its events are retried one by one so a single bad event, such as one for a user deleted
+ * meanwhile, is dropped alone.
+ * Callers enqueue under the read lock and shutdown flips to stopped under the write lock, so once shutdown
+ * drains the queue nothing more can be added; later events are written directly.
+ */
+@Slf4j
+@Component
+public class FeedEventWriter {
+    private final FeedStorage feedStorage;
+    private final BlockingQueue<Pending> queue;
+    private final int batchSize;
+    private final long flushNanos;
+    private final long waitNanos;
+    private final Durability durability;
+    private final Thread writer;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile boolean running = true;
+    private final LongAdder written = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder direct = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder flushNanosTotal = new LongAdder();
+    private final AtomicLong maxFlushNanos = new AtomicLong();
+
+    public FeedEventWriter(FeedStorage feedStorage,
+                           @Value("${filmorate.feed.queue-capacity}") int queueCapacity,
+                           @Value("${filmorate.feed.batch-size}") int batchSize,
+                           @Value("${filmorate.feed.flush-interval}") Duration flushInterval,
+                           @Value("${filmorate.feed.wait-timeout}") Duration waitTimeout,
+                           @Value("${filmorate.feed.durability}") Durability durability) {
+        this.feedStorage = feedStorage;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.flushNanos = flushInterval.toNanos();
+        this.waitNanos = waitTimeout.toNanos();
+        this.durability = durability;
+        this.writer = new Thread(this::run, "feed-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        lock.writeLock().lock();
+        try {
+            running = false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        writer.join(TimeUnit.SECONDS.toMillis(10));
+        List<Pending> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        if (writer.isAlive()) {
+            log.warn("Feed writer did not stop in time, abandoning {} queued events", rest.size());
+            IllegalStateException abandoned =
+                    new IllegalStateException("Feed writer stopped before the event was written");
+            rest.forEach(pending -> pending.done().completeExceptionally(abandoned));
+            dropped.add(rest.size());
+            return;
+        }
+        flush(rest);
+        log.info("Feed writer stopped");
+    }
+
+    public void write(Event event) {
+        Pending pending = new Pending(event, new CompletableFuture<>());
+        if (!enqueue(pending)) {
+            direct.increment();
+            flush(List.of(pending));
+        }
+        if (durability == Durability.WAIT_FOR_FLUSH) {
+            await(pending);
+        }
+    }
+
+    public Stats getStats() {
+        long batchCount = batches.sum();
+        return new Stats(durability, queue.size(), queue.size() + queue.remainingCapacity(), written.sum(),
+                dropped.sum(), direct.sum(), timedOut.sum(), batchCount,
+                batchCount == 0 ? 0 : (double) (written.sum() + dropped.sum()) / batchCount,
+                batchCount == 0 ? 0 : flushNanosTotal.sum() / batchCount / 1_000_000.0,
+                maxFlushNanos.get() / 1_000_000.0);
+    }
+
+    /**
+     * Returns {@code false} if the event must be written by the caller: the writer is stopped,
+     * or the queue stayed full for the whole wait timeout.
+     */
+    private boolean enqueue(Pending pending) {
+        lock.readLock().lock();
+        try {
+            return running && queue.offer(pending, waitNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while queueing feed event", e);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void await(Pending pending) {
+        try {
+            pending.done().get(waitNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            timedOut.increment();
+            log.warn("Feed event {} not flushed within the wait timeout, leaving it queued", pending.event());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for feed event flush", e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : new IllegalStateException(e.getCause());
+        }
+    }
+
+    private void run() {
+        List<Pending> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(flushNanos, TimeUnit.NANOSECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + flushNanos;
+                queue.drainTo(batch, batchSize - batch.size());
+                while (batch.size() < batchSize && running) {
+                    Pending next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                    queue.drainTo(batch, batchSize - batch.size());
+                }
+            } catch (InterruptedException e) {
+                log.warn("Feed writer interrupted, leaving the remaining queue to shutdown");
+                flush(batch);
+                return;
+            }
+            flush(batch);
+            batch.clear();
+        }
+    }
+
+    private void flush(List<Pending> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        long started = System.nanoTime();
+        try {
+            feedStorage.createAll(batch.stream().map(Pending::event).toList());
+            written.add(batch.size());
+            batch.forEach(pending -> pending.done().complete(null));
+        } catch (RuntimeException e) {
+            log.warn("Batch of {} feed events failed, writing them one by one", batch.size(), e);
+            for (Pending pending : batch) {
+                try {
+                    feedStorage.createAll(List.of(pending.event()));
+                    written.increment();
+                    pending.done().complete(null);
+                } catch (RuntimeException single) {
+                    log.error("Dropping feed event {}", pending.event(), single);
+                    dropped.increment();
+                    pending.done().completeExceptionally(single);
+                }
+            }
+        }
+        long elapsed = System.nanoTime() - started;
+        batches.increment();
+        flushNanosTotal.add(elapsed);
+        maxFlushNanos.accumulateAndGet(elapsed, Math::max);
+    }
+
+    public enum Durability {
+        FIRE_AND_FORGET,
+        WAIT_FOR_FLUSH
+    }
+
+    public record Stats(Durability durability, int queueDepth, int queueCapacity, long written, long dropped,
+                        long writtenDirectly, long flushWaitsTimedOut, long batches, double averageBatchSize,
+                        double averageFlushMillis, double maxFlushMillis) {
+    }
+
+    private record Pending(Event event, CompletableFuture<Void> done) {
+    }
+}
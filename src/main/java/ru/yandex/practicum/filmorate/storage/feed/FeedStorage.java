@@ -1,14 +1,19 @@
 package ru.yandex.practicum.filmorate.storage.feed;
 
 import org.springframework.stereotype.Repository;
+import ru.yandex.practicum.filmorate.model.CursorPage;
 import ru.yandex.practicum.filmorate.model.event.Event;
+import ru.yandex.practicum.filmorate.model.event.EventType;
 
 import java.util.List;
+import java.util.Set;
 
 @Repository
 public interface FeedStorage {
 
-    void create(Event event);
+    void createAll(List<Event> events);
 
     List<Event> get(Long userId);
+
+    CursorPage<Event> getPage(Long userId, Long before, Long since, Set<EventType> types, int limit);
 }
@@ -3,16 +3,17 @@ package ru.yandex.practicum.filmorate.storage.feed;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.jdbc.support.GeneratedKeyHolder;
-import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
-import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.mapper.EventMapper;
+import ru.yandex.practicum.filmorate.model.CursorPage;
 import ru.yandex.practicum.filmorate.model.event.Event;
+import ru.yandex.practicum.filmorate.model.event.EventType;
 
-import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 
 @Slf4j
 @Repository
@@ -20,30 +21,24 @@ import java.util.List;
 public class FeedStorageDb implements FeedStorage {
     private final JdbcTemplate jdbcTemplate;
 
+    /**
+     * Inserts all events as one JDBC batch. Event ids are not read back.
+     */
     @Override
-    public void create(Event event) {
-        try {
-            log.info("Creating event: {}", event);
-            KeyHolder keyHolder = new GeneratedKeyHolder();
-            final String sqlQuery = """
-                    INSERT INTO events (
-                    user_id, timestamp, event_type, operation, entity_id
-                    ) VALUES (?, ?, ?, ?, ?)
-                    """;
-
-            jdbcTemplate.update(connection -> {
-                PreparedStatement stmt = connection.prepareStatement(sqlQuery, new String[]{"event_id"});
-                stmt.setLong(1, event.getUserId());
-                stmt.setLong(2, event.getTimestamp());
-                stmt.setString(3, event.getEventType().name());
-                stmt.setString(4, event.getOperation().name());
-                stmt.setLong(5, event.getEntityId());
-                return stmt;
-            }, keyHolder);
-        } catch (ValidationException e) {
-            log.error("Validation error while creating event: {}", e.getMessage(), e);
-            throw e;
-        }
+    public void createAll(List<Event> events) {
+        log.info("Creating {} events", events.size());
+        final String sqlQuery = """
+                INSERT INTO events (
+                user_id, timestamp, event_type, operation, entity_id
+                ) VALUES (?, ?, ?, ?, ?)
+                """;
+        jdbcTemplate.batchUpdate(sqlQuery, events, events.size(), (stmt, event) -> {
+            stmt.setLong(1, event.getUserId());
+            stmt.setLong(2, event.getTimestamp());
+            stmt.setString(3, event.getEventType().name());
+            stmt.setString(4, event.getOperation().name());
+            stmt.setLong(5, event.getEntityId());
+        });
     }
 
     @Override
@@ -66,4 +61,41 @@ public class FeedStorageDb implements FeedStorage {
             throw e;
         }
     }
+
+    /**
+     * Newest events first, served from the (user_id, event_id) index: each page starts below the
+     * {@code before} event id, so the cost does not grow with how far back the reader has paged.
+     */
+    @Override
+    public CursorPage<Event> getPage(Long userId, Long before, Long since, Set<EventType> types, int limit) {
+        log.info("Fetching feed page for user with id {} before event {}", userId, before);
+        StringBuilder sqlQuery = new StringBuilder("""
+                SELECT event_id, user_id, timestamp, event_type, operation, entity_id
+                FROM events
+                WHERE user_id = ?
+                """);
+        List<Object> params = new ArrayList<>();
+        params.add(userId);
+        if (before != null) {
+            sqlQuery.append("AND event_id < ?\n");
+            params.add(before);
+        }
+        if (since != null) {
+            sqlQuery.append("AND timestamp >= ?\n");
+            params.add(since);
+        }
+        if (types != null && !types.isEmpty()) {
+            sqlQuery.append("AND event_type IN (%s)\n"
+                    .formatted(String.join(",", Collections.nCopies(types.size(), "?"))));
+            types.forEach(type -> params.add(type.name()));
+        }
+        sqlQuery.append("ORDER BY event_id DESC\nLIMIT ?");
+        params.add(limit + 1);
+        List<Event> events = jdbcTemplate.query(sqlQuery.toString(), EventMapper::makeEvent, params.toArray());
+        if (events.size() <= limit) {
+            return new CursorPage<>(events, null);
+        }
+        List<Event> page = events.subList(0, limit);
+        return new CursorPage<>(page, String.valueOf(page.getLast().getEventId()));
+    }
 }
@@ -0,0 +1,108 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import ru.yandex.practicum.filmorate.mapper.ReferenceDictionary;
+import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+
+import java.time.LocalDate;
+import java.util.LinkedHashSet;
+
+/**
+ * Immutable cache-side film: references are kept as primitive id arrays and resolved through
+ * the {@link ReferenceDictionary} only when the film is expanded back into its API shape.
+ * The expanded film is a short-lived response object; its sets are sized to the ids they will hold.
+ */
+public final class CompactFilm {
+    private static final int[] NO_GENRES = new int[0];
+    private static final long[] NO_DIRECTORS = new long[0];
+    private static final long NO_DATE = Long.MIN_VALUE;
+
+    private final long id;
+    private final String name;
+    private final String description;
+    private final long duration;
+    private final long releaseEpochDay;
+    private final int mpaId;
+    private final long likeCount;
+    private final int[] genreIds;
+    private final long[] directorIds;
+
+    private CompactFilm(long id, String name, String description, long duration, long releaseEpochDay, int mpaId,
+                        long likeCount, int[] genreIds, long[] directorIds) {
+        this.id = id;
+        this.name = name;
+        this.description = description;
+        this.duration = duration;
+        this.releaseEpochDay = releaseEpochDay;
+        this.mpaId = mpaId;
+        this.likeCount = likeCount;
+        this.genreIds = genreIds;
+        this.directorIds = directorIds;
+    }
+
+    public static CompactFilm of(Film film) {
+        int[] genreIds = NO_GENRES;
+        if (film.getGenres() != null && !film.getGenres().isEmpty()) {
+            genreIds = new int[film.getGenres().size()];
+            int i = 0;
+            for (Genre genre : film.getGenres()) {
+                genreIds[i++] = genre.getId();
+            }
+        }
+        long[] directorIds = NO_DIRECTORS;
+        if (film.getDirectors() != null && !film.getDirectors().isEmpty()) {
+            directorIds = new long[film.getDirectors().size()];
+            int i = 0;
+            for (Director director : film.getDirectors()) {
+                directorIds[i++] = director.getId();
+            }
+        }
+        return new CompactFilm(
+                film.getId(),
+                film.getName(),
+                film.getDescription(),
+                film.getDuration() == null ? 0 : film.getDuration(),
+                film.getReleaseDate() == null ? NO_DATE : film.getReleaseDate().toEpochDay(),
+                film.getMpa().getId(),
+                film.getLikeCount() == null ? 0 : film.getLikeCount(),
+                genreIds,
+                directorIds
+        );
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public long getLikeCount() {
+        return likeCount;
+    }
+
+    public CompactFilm withLikeCount(long likeCount) {
+        return new CompactFilm(id, name, description, duration, releaseEpochDay, mpaId, likeCount, genreIds,
+                directorIds);
+    }
+
+    public Film toFilm(ReferenceDictionary references) {
+        LinkedHashSet<Genre> genres = LinkedHashSet.newLinkedHashSet(genreIds.length);
+        for (int genreId : genreIds) {
+            genres.add(references.genre(genreId));
+        }
+        LinkedHashSet<Director> directors = LinkedHashSet.newLinkedHashSet(directorIds.length);
+        for (long directorId : directorIds) {
+            directors.add(references.director(directorId));
+        }
+        return Film.builder()
+                .id(id)
+                .name(name)
+                .description(description)
+                .duration(duration)
+                .releaseDate(releaseEpochDay == NO_DATE ? null : LocalDate.ofEpochDay(releaseEpochDay))
+                .mpa(references.mpa(mpaId))
+                .likeCount(likeCount)
+                .genres(genres)
+                .directors(directors)
+                .build();
+    }
+}
@@ -0,0 +1,135 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+/**
+ * In-process cache of hydrated films keyed by id, held as {@link CompactFilm}s.
+ * At most a fixed number of films are kept, evicted least recently used; an entry with a pending write
+ * is never evicted.
+ * Every write stamps the entry with a new version from one counter, cached or not, and a load is published
+ * only if no entry it covers was written since the load started. Evicting an entry forgets its version, so
+ * a load also gives up on an id without an entry if any entry written after it started has been evicted.
+ * A patch made inside a transaction is applied only once the transaction commits; until then the entry counts
+ * the write as pending and reads of it go to the database, so the writing transaction sees its own change.
+ * No load is published while a write is pending, since the load may or may not see the uncommitted row.
+ */
+@Slf4j
+@Component
+public class FilmCache {
+    private final Map<Long, Entry> entries;
+    private long version;
+    private long evictedVersion;
+
+    public FilmCache(@Value("${filmorate.films.cache.max-films}") int maxFilms) {
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                if (size() <= maxFilms || eldest.getValue().pending() > 0) {
+                    return false;
+                }
+                evictedVersion = Math.max(evictedVersion, eldest.getValue().version());
+                return true;
+            }
+        };
+    }
+
+    public Map<Long, CompactFilm> getAll(List<Long> ids, Function<List<Long>, Map<Long, CompactFilm>> loader) {
+        Map<Long, CompactFilm> films = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        long started;
+        synchronized (entries) {
+            started = version;
+            for (Long id : ids) {
+                Entry cached = entries.get(id);
+                if (cached != null && cached.film() != null && cached.pending() == 0) {
+                    films.put(id, cached.film());
+                } else {
+                    missing.add(id);
+                }
+            }
+        }
+        if (missing.isEmpty()) {
+            return films;
+        }
+        Map<Long, CompactFilm> loaded = loader.apply(missing);
+        synchronized (entries) {
+            loaded.forEach((id, film) -> {
+                Entry current = entries.get(id);
+                boolean unchanged = current == null
+                        ? evictedVersion <= started
+                        : current.version() <= started && current.pending() == 0;
+                if (unchanged) {
+                    entries.put(id, new Entry(current == null ? 0 : current.version(), film, 0));
+                }
+                films.put(id, film);
+            });
+        }
+        return films;
+    }
+
+    public void patch(Long id, UnaryOperator<CompactFilm> patch) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            synchronized (entries) {
+                Entry current = entries.get(id);
+                entries.put(id, current == null
+                        ? new Entry(++version, null, 0)
+                        : new Entry(++version, apply(current.film(), patch), current.pending()));
+            }
+            return;
+        }
+        synchronized (entries) {
+            Entry current = entries.get(id);
+            entries.put(id, current == null
+                    ? new Entry(++version, null, 1)
+                    : new Entry(++version, current.film(), current.pending() + 1));
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                synchronized (entries) {
+                    Entry current = entries.get(id);
+                    CompactFilm film = switch (status) {
+                        case STATUS_COMMITTED -> apply(current.film(), patch);
+                        case STATUS_ROLLED_BACK -> current.film();
+                        default -> null;
+                    };
+                    entries.put(id, new Entry(++version, film, current.pending() - 1));
+                }
+            }
+        });
+    }
+
+    public void invalidate(Long id) {
+        synchronized (entries) {
+            Entry current = entries.get(id);
+            entries.put(id, new Entry(++version, null, current == null ? 0 : current.pending()));
+        }
+    }
+
+    public void invalidateAll() {
+        log.info("Invalidating all cached films");
+        synchronized (entries) {
+            long invalidated = ++version;
+            entries.replaceAll((key, current) -> new Entry(invalidated, null, current.pending()));
+        }
+    }
+
+    private static CompactFilm apply(CompactFilm film, UnaryOperator<CompactFilm> patch) {
+        return film == null ? null : patch.apply(film);
+    }
+
+    private record Entry(long version, CompactFilm film, int pending) {
+    }
+}
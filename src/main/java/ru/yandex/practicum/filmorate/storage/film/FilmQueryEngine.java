@@ -0,0 +1,97 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.mapper.FilmMapper;
+import ru.yandex.practicum.filmorate.mapper.ReferenceDictionary;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs film list queries in two phases: the caller's query selects only the ordered film ids,
+ * then films are hydrated with one batch query per child table for exactly those ids.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FilmQueryEngine {
+    private static final int BATCH_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final FilmMapper filmMapper;
+    private final FilmCache filmCache;
+    private final ReferenceDictionary references;
+
+    public List<Film> findFilms(String idQuery, Object... params) {
+        List<Long> ids = jdbcTemplate.queryForList(idQuery, Long.class, params);
+        return hydrate(ids);
+    }
+
+    public List<Film> hydrate(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, CompactFilm> films = filmCache.getAll(ids, this::load);
+        List<Film> result = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            CompactFilm film = films.get(id);
+            if (film != null) {
+                result.add(film.toFilm(references));
+            }
+        }
+        return result;
+    }
+
+    private Map<Long, CompactFilm> load(List<Long> ids) {
+        Map<Long, Film> films = new HashMap<>();
+        for (int from = 0; from < ids.size(); from += BATCH_SIZE) {
+            loadBatch(ids.subList(from, Math.min(from + BATCH_SIZE, ids.size())), films);
+        }
+        Map<Long, CompactFilm> compact = new HashMap<>();
+        films.forEach((id, film) -> compact.put(id, CompactFilm.of(film)));
+        log.info("Hydrated {} films", compact.size());
+        return compact;
+    }
+
+    private void loadBatch(List<Long> ids, Map<Long, Film> films) {
+        String in = String.join(",", Collections.nCopies(ids.size(), "?"));
+        Object[] params = ids.toArray();
+
+        final String filmsQuery = """
+                SELECT f.*, m.mpa_name
+                FROM films f
+                JOIN mpa m ON f.mpa_id = m.mpa_id
+                WHERE f.film_id IN (%s)
+                """.formatted(in);
+        ResultSetExtractor<Void> filmsExtractor = rs -> filmMapper.extractFilms(rs, films);
+        jdbcTemplate.query(filmsQuery, filmsExtractor, params);
+
+        final String genresQuery = """
+                SELECT fg.film_id, g.genre_id, g.genre_name
+                FROM film_genres fg
+                JOIN genres g ON fg.genre_id = g.genre_id
+                WHERE fg.film_id IN (%s)
+                ORDER BY fg.film_id, g.genre_id
+                """.formatted(in);
+        ResultSetExtractor<Void> genresExtractor = rs -> filmMapper.extractGenres(rs, films);
+        jdbcTemplate.query(genresQuery, genresExtractor, params);
+
+        final String directorsQuery = """
+                SELECT fd.film_id, d.director_id, d.director_name
+                FROM film_directors fd
+                JOIN directors d ON fd.director_id = d.director_id
+                WHERE fd.film_id IN (%s)
+                ORDER BY fd.film_id, d.director_id
+                """.formatted(in);
+        ResultSetExtractor<Void> directorsExtractor = rs -> filmMapper.extractDirectors(rs, films);
+        jdbcTemplate.query(directorsQuery, directorsExtractor, params);
+    }
+}
@@ -1,9 +1,13 @@
 package ru.yandex.practicum.filmorate.storage.film;
 
 import org.springframework.stereotype.Repository;
+import ru.yandex.practicum.filmorate.model.CursorPage;
 import ru.yandex.practicum.filmorate.model.Film;
 
+import java.time.Instant;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 @Repository
 public interface FilmStorage {
@@ -11,26 +15,28 @@ public interface FilmStorage {
 
     List<Film> findAll();
 
+    List<Film> getFilmsByIds(List<Long> ids);
+
     Film create(Film film);
 
     void delete(Long id);
 
     Film update(Film film);
 
-    void addLike(Long id, Long userId);
+    boolean addLike(Long id, Long userId);
 
-    void deleteLike(Long id, Long userId);
+    /**
+     * Time the removed like was made, or empty if the user had not liked the film.
+     */
+    Optional<Instant> deleteLike(Long id, Long userId);
 
-    List<Film> getPopularFilms(Long count, Long genreId, Integer year);
+    /**
+     * Ids of the films the user liked, each with the time of the like.
+     */
+    Map<Long, Instant> getLikeTimes(Long userId);
 
-    List<Film> getCommonFilms(Long userId, Long friendId);
+    CursorPage<Long> getLikes(Long id, String cursor, int count);
 
     List<Film> getByDirector(int directorId, String sortBy);
 
-    List<Film> searchByTitle(String query);
-
-    List<Film> searchByDirector(String query);
-
-    List<Film> searchByTitleAndDirector(String query);
-
 }
\ No newline at end of file
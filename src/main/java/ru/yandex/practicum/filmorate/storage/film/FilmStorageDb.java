@@ -2,16 +2,16 @@ package ru.yandex.practicum.filmorate.storage.film;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.jdbc.core.BatchPreparedStatementSetter;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
-import ru.yandex.practicum.filmorate.mapper.DirectorMapper;
-import ru.yandex.practicum.filmorate.mapper.FilmMapper;
-import ru.yandex.practicum.filmorate.mapper.GenreMapper;
+import ru.yandex.practicum.filmorate.model.CursorPage;
 import ru.yandex.practicum.filmorate.model.Director;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.Genre;
@@ -19,16 +19,17 @@ import ru.yandex.practicum.filmorate.model.Genre;
 import java.sql.Date;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
 import java.util.*;
-import java.util.function.Function;
-import java.util.stream.Collectors;
 
 @Slf4j
 @Repository
 @RequiredArgsConstructor
 public class FilmStorageDb implements FilmStorage {
     private final JdbcTemplate jdbcTemplate;
-    private final FilmMapper filmMapper;
+    private final FilmQueryEngine filmQueryEngine;
+    private final FilmCache filmCache;
 
     @Override
     public Film create(Film film) {
@@ -54,9 +55,11 @@ public class FilmStorageDb implements FilmStorage {
 
         long filmId = Objects.requireNonNull(keyHolder.getKey()).longValue();
         film.setId(filmId);
+        film.setLikeCount(0L);
 
         addFilmGenres(film);
         addFilmDirectors(film);
+        filmCache.invalidate(filmId);
         log.info("Film created: {}", film);
         return film;
     }
@@ -66,6 +69,7 @@ public class FilmStorageDb implements FilmStorage {
         log.info("Removing film with id: {}", id);
         String sqlQuery = "DELETE FROM films WHERE film_id = ?";
         jdbcTemplate.update(sqlQuery, id);
+        filmCache.invalidate(id);
         log.info("Film with id {} removed", id);
     }
 
@@ -99,6 +103,7 @@ public class FilmStorageDb implements FilmStorage {
 
         addFilmGenres(newFilm);
         addFilmDirectors(newFilm);
+        filmCache.invalidate(newFilm.getId());
 
         Film updatedFilm = getFilmById(newFilm.getId());
         log.info("Film updated: {}", updatedFilm);
@@ -108,242 +113,124 @@ public class FilmStorageDb implements FilmStorage {
     @Override
     public List<Film> findAll() {
         log.info("Fetching all films");
-        final String sqlQuery = """
-                    SELECT f.*,
-                           m.mpa_id, m.mpa_name,
-                           g.genre_id, g.genre_name,
-                           l.user_id AS like_user_id,
-                           d.director_id, d.director_name
-                    FROM films f
-                    JOIN mpa m ON f.mpa_id = m.mpa_id
-                    LEFT JOIN film_genres fg ON f.film_id = fg.film_id
-                    LEFT JOIN genres g ON fg.genre_id = g.genre_id
-                    LEFT JOIN likes l ON f.film_id = l.film_id
-                    LEFT JOIN film_directors fd ON f.film_id = fd.film_id
-                    LEFT JOIN directors d ON fd.director_id = d.director_id
-                """;
-        List<Film> films = jdbcTemplate.query(sqlQuery, filmMapper);
+        final String sqlQuery = "SELECT film_id FROM films ORDER BY film_id";
+        List<Film> films = filmQueryEngine.findFilms(sqlQuery);
         log.info("Fetched {} films", films.size());
         return films;
     }
 
+    @Override
+    public List<Film> getFilmsByIds(List<Long> ids) {
+        return filmQueryEngine.hydrate(ids);
+    }
+
     @Override
     public Film getFilmById(Long id) {
         log.info("Fetching film with id: {}", id);
-        List<Film> films = findAll();
-        Optional<Film> optionalFilm = films.stream()
-                .filter(f -> f.getId().equals(id))
-                .findFirst();
-
-        if (optionalFilm.isPresent()) {
-            log.info("Film found: {}", optionalFilm.get());
-            return optionalFilm.get();
-        } else {
+        List<Film> films = filmQueryEngine.hydrate(List.of(id));
+        if (films.isEmpty()) {
             log.error("Film with id {} not found", id);
             throw new NotFoundException("Film id = " + id + " not found");
         }
+        log.info("Film found: {}", films.getFirst());
+        return films.getFirst();
     }
 
     @Override
     public List<Film> getByDirector(int directorId, String sortBy) {
-        LinkedHashMap<Long, Film> films = "year".equals(sortBy) ? sortByYear(directorId) : sortByLikes(directorId);
-
-        setGenresAndDirectors(films);
-        return films.values().stream().toList();
+        return "year".equals(sortBy) ? sortByYear(directorId) : sortByLikes(directorId);
     }
 
     @Override
-    public List<Film> searchByTitle(String query) {
-        log.info("Search by title: {}", query);
-        final String sqlQuery = """
-                SELECT f.*,
-                           m.mpa_id, m.mpa_name,
-                           g.genre_id, g.genre_name,
-                           l.user_id AS like_user_id,
-                           d.director_id, d.director_name
-                FROM FILMS f
-                JOIN mpa m ON f.mpa_id = m.mpa_id
-                LEFT JOIN film_genres fg ON f.film_id = fg.film_id
-                LEFT JOIN genres g ON fg.genre_id = g.genre_id
-                LEFT JOIN likes l ON f.film_id = l.film_id
-                LEFT JOIN film_directors fd ON f.film_id = fd.film_id
-                LEFT JOIN directors d ON fd.director_id = d.director_id
-                JOIN (
-                    SELECT ff.FILM_ID, COUNT(l.USER_ID) count_like
-                    FROM LIKES l
-                    RIGHT JOIN films ff ON l.FILM_ID = ff.FILM_ID
-                    GROUP BY ff.FILM_ID
-                    ORDER BY COUNT(l.USER_ID) DESC
-                    ) t ON t.FILM_ID = f.FILM_ID
-                WHERE LOWER(f.FILM_NAME) LIKE ?
-                ORDER BY t.count_like DESC
-                """;
-        List<Film> films = jdbcTemplate.query(sqlQuery, filmMapper, "%" + query.toLowerCase() + "%");
-        log.info("Found {} films", films.size());
-        return films;
-    }
-
-    @Override
-    public List<Film> searchByDirector(String query) {
-        log.info("Search by director: {}", query);
-        final String sqlQuery = """
-                SELECT f.*,
-                           m.mpa_id, m.mpa_name,
-                           g.genre_id, g.genre_name,
-                           l.user_id AS like_user_id,
-                           d.director_id, d.director_name
-                FROM FILMS f
-                JOIN mpa m ON f.mpa_id = m.mpa_id
-                LEFT JOIN film_genres fg ON f.film_id = fg.film_id
-                LEFT JOIN genres g ON fg.genre_id = g.genre_id
-                LEFT JOIN likes l ON f.film_id = l.film_id
-                LEFT JOIN film_directors fd ON f.film_id = fd.film_id
-                LEFT JOIN directors d ON fd.director_id = d.director_id
-                JOIN (
-                    SELECT ff.FILM_ID, COUNT(l.USER_ID) count_like
-                    FROM LIKES l
-                    RIGHT JOIN films ff ON l.FILM_ID = ff.FILM_ID
-                    GROUP BY ff.FILM_ID
-                    ORDER BY COUNT(l.USER_ID) DESC
-                    ) t ON t.FILM_ID = f.FILM_ID
-                WHERE LOWER(d.DIRECTOR_NAME) LIKE ?
-                ORDER BY t.count_like DESC
-                """;
-        List<Film> films = jdbcTemplate.query(sqlQuery, filmMapper, "%" + query.toLowerCase() + "%");
-        log.info("Found {} films", films.size());
-        return films;
-    }
-
-    @Override
-    public List<Film> searchByTitleAndDirector(String query) {
-        log.info("Search by title and director: {}", query);
-        final String sqlQuery = """
-                SELECT f.*,
-                           m.mpa_id, m.mpa_name,
-                           g.genre_id, g.genre_name,
-                           l.user_id AS like_user_id,
-                           d.director_id, d.director_name
-                FROM FILMS f
-                JOIN mpa m ON f.mpa_id = m.mpa_id
-                LEFT JOIN film_genres fg ON f.film_id = fg.film_id
-                LEFT JOIN genres g ON fg.genre_id = g.genre_id
-                LEFT JOIN likes l ON f.film_id = l.film_id
-                LEFT JOIN film_directors fd ON f.film_id = fd.film_id
-                LEFT JOIN directors d ON fd.director_id = d.director_id
-                JOIN (
-                    SELECT ff.FILM_ID, COUNT(l.USER_ID) count_like
-                    FROM LIKES l
-                    RIGHT JOIN films ff ON l.FILM_ID = ff.FILM_ID
-                    GROUP BY ff.FILM_ID
-                    ORDER BY COUNT(l.USER_ID) DESC
-                    ) t ON t.FILM_ID = f.FILM_ID
-                WHERE LOWER(d.DIRECTOR_NAME) LIKE ?
-                OR LOWER(f.FILM_NAME) LIKE ?
-                ORDER BY t.count_like DESC
-                """;
-        List<Film> films = jdbcTemplate.query(sqlQuery, filmMapper, "%" + query.toLowerCase() + "%",
-                "%" + query.toLowerCase() + "%");
-        log.info("Found {} films", films.size());
-        return films;
-    }
-
-    @Override
-    public void addLike(Long id, Long userId) {
+    @Transactional
+    public boolean addLike(Long id, Long userId) {
         log.info("Adding like to film with id: {} from user with id: {}", id, userId);
         getFilmById(id);
-        deleteLike(id, userId);
         final String sqlQuery = """
                 INSERT INTO likes (film_id, user_id)
-                VALUES(?,?)
+                SELECT ?, ?
+                WHERE NOT EXISTS (SELECT 1 FROM likes WHERE film_id = ? AND user_id = ?)
                 """;
-        jdbcTemplate.update(connection -> {
-            PreparedStatement stmt = connection.prepareStatement(sqlQuery);
-            stmt.setLong(1, id);
-            stmt.setLong(2, userId);
-            return stmt;
-        });
+        int inserted;
+        try {
+            inserted = jdbcTemplate.update(sqlQuery, id, userId, id, userId);
+        } catch (DuplicateKeyException e) {
+            inserted = 0;
+        }
+        if (inserted == 0) {
+            log.info("Film with id: {} is already liked by user with id: {}", id, userId);
+            return false;
+        }
+        jdbcTemplate.update("UPDATE films SET like_count = like_count + 1 WHERE film_id = ?", id);
+        filmCache.patch(id, film -> withLikeCount(film, 1));
         log.info("Like added to film with id: {} from user with id: {}", id, userId);
+        return true;
     }
 
     @Override
-    public void deleteLike(Long id, Long userId) {
+    @Transactional
+    public Optional<Instant> deleteLike(Long id, Long userId) {
         log.info("Deleting like from film with id: {} by user with id: {}", id, userId);
+        List<Timestamp> likedAt = jdbcTemplate.queryForList(
+                "SELECT created_at FROM likes WHERE film_id = ? AND user_id = ?", Timestamp.class, id, userId);
         final String sqlQuery = """
                 DELETE FROM likes
                 WHERE film_id = ? AND user_id = ?
                 """;
-        jdbcTemplate.update(sqlQuery, id, userId);
+        if (likedAt.isEmpty() || jdbcTemplate.update(sqlQuery, id, userId) == 0) {
+            log.info("Film with id: {} is not liked by user with id: {}", id, userId);
+            return Optional.empty();
+        }
+        jdbcTemplate.update("UPDATE films SET like_count = like_count - 1 WHERE film_id = ?", id);
+        filmCache.patch(id, film -> withLikeCount(film, -1));
         log.info("Like deleted from film with id: {} by user with id: {}", id, userId);
+        return Optional.of(likedAt.getFirst().toInstant());
+    }
+
+    @Override
+    public Map<Long, Instant> getLikeTimes(Long userId) {
+        log.info("Fetching films liked by user with id: {}", userId);
+        Map<Long, Instant> likes = new LinkedHashMap<>();
+        jdbcTemplate.query("SELECT film_id, created_at FROM likes WHERE user_id = ?", rs -> {
+            likes.put(rs.getLong("film_id"), rs.getTimestamp("created_at").toInstant());
+        }, userId);
+        return likes;
     }
 
     @Override
-    public List<Film> getPopularFilms(Long count, Long genreId, Integer year) {
-        log.info("Fetching top {} popular films", count);
+    public CursorPage<Long> getLikes(Long id, String cursor, int count) {
+        log.info("Fetching likes of film with id: {} after cursor: {}", id, cursor);
+        getFilmById(id);
+        long after = parseLikesCursor(cursor);
         final String sqlQuery = """
-                SELECT f.*,
-                 m.mpa_id, m.mpa_name,
-                 g.genre_id, g.genre_name,
-                 l.user_id AS like_user_id,
-                 d.director_id, d.director_name
-                 FROM films f
-                 JOIN mpa m ON f.mpa_id = m.mpa_id
-                 LEFT JOIN film_genres fg ON f.film_id = fg.film_id
-                 LEFT JOIN genres g ON fg.genre_id = g.genre_id
-                 LEFT JOIN likes l ON f.film_id = l.film_id
-                 LEFT JOIN film_directors fd ON f.film_id = fd.film_id
-                 LEFT JOIN directors d ON fd.director_id = d.director_id
-                 JOIN (
-                 SELECT ff.FILM_ID, COUNT(l.USER_ID) count_like
-                 		FROM LIKES l
-                 		RIGHT JOIN films ff ON l.FILM_ID = ff.FILM_ID
-                 		%s
-                 		GROUP BY ff.FILM_ID
-                 		ORDER BY COUNT(l.USER_ID) DESC
-                 		LIMIT ?
-                 ) t ON t.FILM_ID = f.FILM_ID
-                 ORDER BY t.count_like DESC
+                SELECT user_id
+                FROM likes
+                WHERE film_id = ? AND user_id > ?
+                ORDER BY user_id
+                LIMIT ?
                 """;
-        String condition = " ";
-        List<Object> params = new ArrayList<>();
-        if (genreId != null) {
-            condition = condition + " JOIN FILM_GENRES fg ON fg.FILM_ID = l.FILM_ID AND fg.GENRE_ID = ? ";
-            params.add(genreId);
+        List<Long> userIds = jdbcTemplate.queryForList(sqlQuery, Long.class, id, after, count + 1);
+        if (userIds.size() <= count) {
+            return new CursorPage<>(userIds, null);
         }
-        if (year != null) {
-            condition = condition + " JOIN films f ON l.FILM_ID = f.FILM_ID AND YEAR(f.FILM_RELEASEDATE) = ? ";
-            params.add(year);
-        }
-        params.add(count);
-        String sql = String.format(sqlQuery, condition);
+        List<Long> page = userIds.subList(0, count);
+        return new CursorPage<>(page, String.valueOf(page.getLast()));
+    }
 
-        List<Film> popularFilms = jdbcTemplate.query(sql, filmMapper, params.toArray());
-        log.info("Fetched {} popular films", popularFilms.size());
-        return popularFilms;
+    private static long parseLikesCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(cursor);
+        } catch (NumberFormatException e) {
+            log.error("Invalid likes cursor: {}", cursor);
+            throw new ValidationException("Invalid cursor: " + cursor);
+        }
     }
 
-    @Override
-    public List<Film> getCommonFilms(Long userId, Long friendId) {
-        String query = """
-                WITH temp AS (SELECT l1.film_id AS common_films
-                              FROM likes AS l1
-                                       INNER JOIN likes AS l2 ON l1.film_id = l2.film_id
-                              WHERE l1.user_id = ?
-                                AND l2.user_id = ?)
-                SELECT f.*,
-                       m.mpa_id, m.mpa_name,
-                       g.genre_id, g.genre_name,
-                       l.user_id AS like_user_id,
-                       d.director_id, d.director_name
-                FROM films f
-                    INNER JOIN temp ON temp.common_films = f.film_id
-                         JOIN mpa m ON f.mpa_id = m.mpa_id
-                         LEFT JOIN film_genres fg ON f.film_id = fg.film_id
-                         LEFT JOIN genres g ON fg.genre_id = g.genre_id
-                         LEFT JOIN likes l ON f.film_id = l.film_id
-                         LEFT JOIN film_directors fd ON f.film_id = fd.film_id
-                         LEFT JOIN directors d ON fd.director_id = d.director_id;
-                """;
-        return jdbcTemplate.query(query, filmMapper, userId, friendId);
+    private static CompactFilm withLikeCount(CompactFilm film, long delta) {
+        return film.withLikeCount(Math.max(0, film.getLikeCount() + delta));
     }
 
     private void addFilmGenres(Film film) {
@@ -399,91 +286,25 @@ public class FilmStorageDb implements FilmStorage {
         });
     }
 
-    private void setGenresAndDirectors(Map<Long, Film> films) {
-
-        Map<Integer, Genre> genres = jdbcTemplate.query("SELECT * FROM genres", GenreMapper::makeGenre).stream()
-                .collect(Collectors.toMap(Genre::getId, Function.identity()));
-
-        Map<Long, Director> directors = jdbcTemplate.query("SELECT * FROM directors", DirectorMapper::makeDirector)
-                .stream()
-                .collect(Collectors.toMap(Director::getId, Function.identity()));
-
-        jdbcTemplate.query("SELECT * FROM film_genres", rs -> {
-
-            Film film = null;
-            while (rs.next()) {
-                film = films.get(rs.getLong("film_id"));
-                if (film != null) {
-                    Genre genre = genres.get(rs.getInt("genre_id"));
-                    film.getGenres().add(genre);
-                }
-            }
-            return film;
-        });
-
-        jdbcTemplate.query("SELECT * FROM film_directors;", rs -> {
-
-            Film film = null;
-            while (rs.next()) {
-                film = films.get(rs.getLong("film_id"));
-                if (film != null) {
-                    Director director = directors.get(rs.getLong("director_id"));
-                    film.getDirectors().add(director);
-                }
-            }
-            return film;
-        });
-    }
-
-    private LinkedHashMap<Long, Film> sortByYear(int directorId) {
+    private List<Film> sortByYear(int directorId) {
         String sql = """
-                SELECT f.*,
-                           m.mpa_id, m.mpa_name,
-                           g.genre_id, g.genre_name,
-                           l.user_id AS like_user_id,
-                           d.director_id, d.director_name
-                    FROM films f
-                    JOIN mpa m ON f.mpa_id = m.mpa_id
-                    LEFT JOIN film_genres fg ON f.film_id = fg.film_id
-                    LEFT JOIN genres g ON fg.genre_id = g.genre_id
-                    LEFT JOIN likes l ON f.film_id = l.film_id
-                    LEFT JOIN film_directors fd ON f.film_id = fd.film_id
-                    LEFT JOIN directors d ON fd.director_id = d.director_id
+                SELECT f.film_id
+                FROM films f
+                JOIN film_directors fd ON f.film_id = fd.film_id
                 WHERE fd.director_id = ?
-                GROUP BY f.film_id
-                ORDER BY f.film_releaseDate
+                ORDER BY f.film_releaseDate, f.film_id
                 """;
-        return jdbcTemplate.query(sql, filmMapper, directorId)
-                .stream()
-                .collect(Collectors.toMap(Film::getId, Function.identity(),
-                        (oldValue, newValue) -> oldValue,
-                        LinkedHashMap::new));
+        return filmQueryEngine.findFilms(sql, directorId);
     }
 
-    private LinkedHashMap<Long, Film> sortByLikes(int directorId) {
+    private List<Film> sortByLikes(int directorId) {
         String getFilmsByLikes = """
-                SELECT f.*,
-                           m.mpa_id, m.mpa_name,
-                           g.genre_id, g.genre_name,
-                           l.user_id as like_user_id,
-                           d.director_id, d.director_name,
-                           COUNT(*) as film_likes
-                    FROM films f
-                    JOIN mpa m ON f.mpa_id = m.mpa_id
-                    LEFT JOIN film_genres fg ON f.film_id = fg.film_id
-                    LEFT JOIN genres g ON fg.genre_id = g.genre_id
-                    LEFT JOIN likes l ON f.film_id = l.film_id
-                    LEFT JOIN film_directors fd ON f.film_id = fd.film_id
-                    LEFT JOIN directors d ON fd.director_id = d.director_id
-                    LEFT JOIN (SELECT film_id, count(*) likes_count
-                    FROM likes GROUP BY film_id) fl ON fl.film_id = f.film_id
+                SELECT f.film_id
+                FROM films f
+                JOIN film_directors fd ON f.film_id = fd.film_id
                 WHERE fd.director_id = ?
-                GROUP BY f.film_id, l.user_id
-                ORDER BY fl.likes_count DESC""";
-        return Objects.requireNonNull(jdbcTemplate.query(getFilmsByLikes, filmMapper, directorId)).stream()
-                .collect(Collectors.toMap(Film::getId, Function.identity(),
-                        (oldValue, newValue) -> oldValue,
-                        LinkedHashMap::new));
+                ORDER BY f.like_count DESC, f.film_id""";
+        return filmQueryEngine.findFilms(getFilmsByLikes, directorId);
     }
 
 }
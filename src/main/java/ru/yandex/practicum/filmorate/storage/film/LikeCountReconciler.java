@@ -0,0 +1,57 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.film.index.PopularityIndex;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Periodically repairs films whose denormalized like_count drifted from the likes table.
+ * The drift is read in one statement and applied as a relative correction, which commutes with likes added or
+ * removed meanwhile, so the same correction can be applied to the popularity index without a rebuild.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LikeCountReconciler {
+    private final JdbcTemplate jdbcTemplate;
+    private final PopularityIndex popularityIndex;
+    private final FilmCache filmCache;
+
+    @Scheduled(fixedDelayString = "${filmorate.likes.reconcile-interval}",
+            initialDelayString = "${filmorate.likes.reconcile-interval}")
+    public int reconcile() {
+        log.info("Reconciling film like counters");
+        final String sqlQuery = """
+                SELECT f.film_id, COUNT(l.user_id) - f.like_count AS drift
+                FROM films f
+                LEFT JOIN likes l ON l.film_id = f.film_id
+                GROUP BY f.film_id, f.like_count
+                HAVING COUNT(l.user_id) <> f.like_count
+                """;
+        Map<Long, Long> drifts = new LinkedHashMap<>();
+        jdbcTemplate.query(sqlQuery, rs -> {
+            drifts.put(rs.getLong("film_id"), rs.getLong("drift"));
+        });
+        if (drifts.isEmpty()) {
+            log.info("Film like counters are consistent");
+            return 0;
+        }
+        List<Object[]> corrections = drifts.entrySet().stream()
+                .map(drift -> new Object[]{drift.getValue(), drift.getKey()})
+                .toList();
+        jdbcTemplate.batchUpdate("UPDATE films SET like_count = like_count + ? WHERE film_id = ?", corrections);
+        drifts.forEach((filmId, drift) -> {
+            popularityIndex.adjustLikes(filmId, drift);
+            filmCache.invalidate(filmId);
+        });
+        log.warn("Fixed like counter drift for {} films", drifts.size());
+        return drifts.size();
+    }
+}
@@ -0,0 +1,449 @@
+package ru.yandex.practicum.filmorate.storage.film.index;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Completion;
+import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static ru.yandex.practicum.filmorate.util.TextUtil.fold;
+
+/**
+ * Radix trie over case-folded film titles and director names. Every word of a name starts a term,
+ * so "nolan" completes "Christopher Nolan". Chains of single-child nodes are collapsed into one node whose
+ * edge carries the whole label, so nodes exist only where terms branch or end. Each node keeps its top
+ * completions by likes (a director scores the likes of all their films), so a lookup is a walk down the
+ * prefix, possibly ending inside an edge. Children live in sorted parallel arrays keyed by the first char
+ * of their label instead of maps to keep nodes small.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AutocompleteIndex implements FilmChangeListener, DirectorChangeListener {
+    public static final int TOP_N = 10;
+    private static final Comparator<Entry> ORDER = Comparator.comparingLong((Entry entry) -> entry.score).reversed()
+            .thenComparing(entry -> entry.type)
+            .thenComparingLong(entry -> entry.id);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Entry> films = new HashMap<>();
+    private final Map<Long, Entry> directors = new HashMap<>();
+    private final Map<Long, Set<Long>> filmDirectors = new HashMap<>();
+    private Node root = new Node("");
+
+    @PostConstruct
+    public void rebuild() {
+        log.info("Rebuilding autocomplete index");
+        lock.writeLock().lock();
+        try {
+            root = new Node("");
+            films.clear();
+            directors.clear();
+            filmDirectors.clear();
+            jdbcTemplate.query("SELECT film_id, film_name, like_count FROM films", rs -> {
+                Entry entry = new Entry(Completion.Type.FILM, rs.getLong("film_id"), rs.getString("film_name"));
+                entry.score = rs.getLong("like_count");
+                films.put(entry.id, entry);
+            });
+            jdbcTemplate.query("SELECT director_id, director_name FROM directors", rs -> {
+                Entry entry = new Entry(Completion.Type.DIRECTOR, rs.getLong("director_id"), rs.getString("director_name"));
+                directors.put(entry.id, entry);
+            });
+            jdbcTemplate.query("SELECT film_id, director_id FROM film_directors", rs -> {
+                long filmId = rs.getLong("film_id");
+                long directorId = rs.getLong("director_id");
+                filmDirectors.computeIfAbsent(filmId, id -> new HashSet<>()).add(directorId);
+                Entry film = films.get(filmId);
+                Entry director = directors.get(directorId);
+                if (film != null && director != null) {
+                    director.score += film.score;
+                }
+            });
+            films.values().forEach(this::insert);
+            directors.values().forEach(this::insert);
+            log.info("Autocomplete index built for {} films and {} directors", films.size(), directors.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<Completion> complete(String prefix, int limit) {
+        String folded = fold(prefix);
+        if (folded.isBlank()) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            Node node = root;
+            int matched = 0;
+            while (matched < folded.length()) {
+                node = node.child(folded.charAt(matched));
+                if (node == null) {
+                    return List.of();
+                }
+                int common = common(node.label, folded, matched);
+                if (common < node.label.length() && matched + common < folded.length()) {
+                    return List.of();
+                }
+                matched += common;
+            }
+            return Arrays.stream(node.top)
+                    .limit(limit)
+                    .map(entry -> new Completion(entry.type, entry.id, entry.name))
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void onFilmSaved(Film film) {
+        Set<Long> directorIds = new HashSet<>();
+        if (film.getDirectors() != null) {
+            film.getDirectors().stream()
+                    .filter(Objects::nonNull)
+                    .forEach(director -> directorIds.add(director.getId()));
+        }
+        lock.writeLock().lock();
+        try {
+            Entry old = films.get(film.getId());
+            long likes = old == null ? 0 : old.score;
+            if (old == null || !old.name.equals(film.getName())) {
+                if (old != null) {
+                    remove(old);
+                }
+                Entry entry = new Entry(Completion.Type.FILM, film.getId(), film.getName());
+                entry.score = likes;
+                films.put(entry.id, entry);
+                insert(entry);
+            }
+            Set<Long> oldDirectorIds = filmDirectors.getOrDefault(film.getId(), Set.of());
+            for (Long directorId : oldDirectorIds) {
+                if (!directorIds.contains(directorId)) {
+                    rescore(directors.get(directorId), -likes);
+                }
+            }
+            for (Long directorId : directorIds) {
+                if (!oldDirectorIds.contains(directorId)) {
+                    rescore(directors.get(directorId), likes);
+                }
+            }
+            filmDirectors.put(film.getId(), directorIds);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onFilmDeleted(Long filmId) {
+        lock.writeLock().lock();
+        try {
+            Entry old = films.remove(filmId);
+            Set<Long> directorIds = filmDirectors.remove(filmId);
+            if (old != null) {
+                remove(old);
+                if (directorIds != null) {
+                    directorIds.forEach(directorId -> rescore(directors.get(directorId), -old.score));
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onLikeAdded(Long filmId, Long userId) {
+        changeLikes(filmId, 1);
+    }
+
+    @Override
+    public void onLikeRemoved(Long filmId, Long userId) {
+        changeLikes(filmId, -1);
+    }
+
+    @Override
+    public void onDirectorSaved(Director director) {
+        lock.writeLock().lock();
+        try {
+            Entry old = directors.get(director.getId());
+            if (old != null && old.name.equals(director.getName())) {
+                return;
+            }
+            Entry entry = new Entry(Completion.Type.DIRECTOR, director.getId(), director.getName());
+            if (old != null) {
+                remove(old);
+                entry.score = old.score;
+            }
+            directors.put(entry.id, entry);
+            insert(entry);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onDirectorDeleted(Long directorId) {
+        lock.writeLock().lock();
+        try {
+            Entry old = directors.remove(directorId);
+            if (old != null) {
+                remove(old);
+            }
+            filmDirectors.values().forEach(directorIds -> directorIds.remove(directorId));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void changeLikes(Long filmId, long delta) {
+        lock.writeLock().lock();
+        try {
+            Entry film = films.get(filmId);
+            if (film == null || film.score + delta < 0) {
+                return;
+            }
+            rescore(film, delta);
+            filmDirectors.getOrDefault(filmId, Set.of()).forEach(directorId -> rescore(directors.get(directorId), delta));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void rescore(Entry entry, long delta) {
+        if (entry == null || delta == 0) {
+            return;
+        }
+        entry.score = Math.max(0, entry.score + delta);
+        for (String term : terms(entry.name)) {
+            List<Node> path = path(term);
+            if (path != null) {
+                recomputeTop(path);
+            }
+        }
+    }
+
+    private void insert(Entry entry) {
+        for (String term : terms(entry.name)) {
+            List<Node> path = new ArrayList<>();
+            Node node = root;
+            path.add(node);
+            int matched = 0;
+            while (matched < term.length()) {
+                Node child = node.child(term.charAt(matched));
+                if (child == null) {
+                    child = node.addChild(term.substring(matched));
+                } else {
+                    int common = common(child.label, term, matched);
+                    if (common < child.label.length()) {
+                        child = node.split(child, common);
+                    }
+                }
+                node = child;
+                matched += node.label.length();
+                path.add(node);
+            }
+            node.addEnd(entry);
+            recomputeTop(path);
+        }
+    }
+
+    private void remove(Entry entry) {
+        for (String term : terms(entry.name)) {
+            List<Node> path = path(term);
+            if (path == null) {
+                continue;
+            }
+            path.getLast().removeEnd(entry);
+            for (int i = path.size() - 1; i > 0; i--) {
+                Node node = path.get(i);
+                Node parent = path.get(i - 1);
+                if (node.isEmpty()) {
+                    parent.removeChild(node);
+                } else if (node.ends.length == 0 && node.children.length == 1) {
+                    node.absorbOnlyChild();
+                }
+            }
+            recomputeTop(path);
+        }
+    }
+
+    private static void recomputeTop(List<Node> path) {
+        for (int i = path.size() - 1; i >= 0; i--) {
+            path.get(i).recomputeTop();
+        }
+    }
+
+    /**
+     * Nodes from the root to the node where the term ends exactly, or {@code null} if it is not in the trie.
+     */
+    private List<Node> path(String term) {
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        path.add(node);
+        int matched = 0;
+        while (matched < term.length()) {
+            node = node.child(term.charAt(matched));
+            if (node == null || !term.startsWith(node.label, matched)) {
+                return null;
+            }
+            matched += node.label.length();
+            path.add(node);
+        }
+        return path;
+    }
+
+    /**
+     * Length of the common prefix of the label and the text from the given offset.
+     */
+    private static int common(String label, String text, int from) {
+        int max = Math.min(label.length(), text.length() - from);
+        int i = 0;
+        while (i < max && label.charAt(i) == text.charAt(from + i)) {
+            i++;
+        }
+        return i;
+    }
+
+    private static Set<String> terms(String name) {
+        String folded = fold(name).strip();
+        Set<String> terms = new LinkedHashSet<>();
+        for (int i = 0; i < folded.length(); i++) {
+            if (!Character.isWhitespace(folded.charAt(i)) && (i == 0 || Character.isWhitespace(folded.charAt(i - 1)))) {
+                terms.add(folded.substring(i));
+            }
+        }
+        return terms;
+    }
+
+    private static final class Entry {
+        private final Completion.Type type;
+        private final long id;
+        private final String name;
+        private long score;
+
+        private Entry(Completion.Type type, long id, String name) {
+            this.type = type;
+            this.id = id;
+            this.name = name;
+        }
+    }
+
+    private static final class Node {
+        private static final char[] NO_KEYS = new char[0];
+        private static final Node[] NO_CHILDREN = new Node[0];
+        private static final Entry[] NO_ENTRIES = new Entry[0];
+
+        private String label;
+        private char[] keys = NO_KEYS;
+        private Node[] children = NO_CHILDREN;
+        private Entry[] ends = NO_ENTRIES;
+        private Entry[] top = NO_ENTRIES;
+
+        private Node(String label) {
+            this.label = label;
+        }
+
+        private Node child(char key) {
+            int i = Arrays.binarySearch(keys, key);
+            return i < 0 ? null : children[i];
+        }
+
+        private Node addChild(String label) {
+            char key = label.charAt(0);
+            int i = -Arrays.binarySearch(keys, key) - 1;
+            Node child = new Node(label);
+            char[] newKeys = new char[keys.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(keys, 0, newKeys, 0, i);
+            System.arraycopy(children, 0, newChildren, 0, i);
+            newKeys[i] = key;
+            newChildren[i] = child;
+            System.arraycopy(keys, i, newKeys, i + 1, keys.length - i);
+            System.arraycopy(children, i, newChildren, i + 1, children.length - i);
+            keys = newKeys;
+            children = newChildren;
+            return child;
+        }
+
+        /**
+         * Puts a new node for the first {@code length} chars of the child's label between this node and the child.
+         */
+        private Node split(Node child, int length) {
+            Node middle = new Node(child.label.substring(0, length));
+            child.label = child.label.substring(length);
+            middle.keys = new char[]{child.label.charAt(0)};
+            middle.children = new Node[]{child};
+            middle.top = child.top;
+            children[Arrays.binarySearch(keys, middle.label.charAt(0))] = middle;
+            return middle;
+        }
+
+        /**
+         * Merges the only child into this node, which has no entries of its own.
+         */
+        private void absorbOnlyChild() {
+            Node child = children[0];
+            label = label + child.label;
+            keys = child.keys;
+            children = child.children;
+            ends = child.ends;
+            top = child.top;
+        }
+
+        private void removeChild(Node child) {
+            int i = Arrays.binarySearch(keys, child.label.charAt(0));
+            if (i < 0 || children[i] != child) {
+                return;
+            }
+            char[] newKeys = new char[keys.length - 1];
+            Node[] newChildren = new Node[children.length - 1];
+            System.arraycopy(keys, 0, newKeys, 0, i);
+            System.arraycopy(children, 0, newChildren, 0, i);
+            System.arraycopy(keys, i + 1, newKeys, i, keys.length - i - 1);
+            System.arraycopy(children, i + 1, newChildren, i, children.length - i - 1);
+            keys = newKeys.length == 0 ? NO_KEYS : newKeys;
+            children = newChildren.length == 0 ? NO_CHILDREN : newChildren;
+        }
+
+        private void addEnd(Entry entry) {
+            ends = Arrays.copyOf(ends, ends.length + 1);
+            ends[ends.length - 1] = entry;
+        }
+
+        private void removeEnd(Entry entry) {
+            Entry[] kept = Arrays.stream(ends).filter(end -> end != entry).toArray(Entry[]::new);
+            ends = kept.length == 0 ? NO_ENTRIES : kept;
+        }
+
+        private boolean isEmpty() {
+            return ends.length == 0 && children.length == 0;
+        }
+
+        private void recomputeTop() {
+            Set<Entry> candidates = new LinkedHashSet<>(Arrays.asList(ends));
+            for (Node child : children) {
+                candidates.addAll(Arrays.asList(child.top));
+            }
+            Entry[] sorted = candidates.toArray(Entry[]::new);
+            Arrays.sort(sorted, ORDER);
+            top = sorted.length == 0 ? NO_ENTRIES : Arrays.copyOf(sorted, Math.min(TOP_N, sorted.length));
+        }
+    }
+}
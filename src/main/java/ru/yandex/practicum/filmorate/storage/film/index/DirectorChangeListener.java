@@ -0,0 +1,14 @@
+package ru.yandex.practicum.filmorate.storage.film.index;
+
+import ru.yandex.practicum.filmorate.model.Director;
+
+/**
+ * Receives director changes after they are written, so in-memory film indexes can follow renames and deletes.
+ */
+public interface DirectorChangeListener {
+    default void onDirectorSaved(Director director) {
+    }
+
+    default void onDirectorDeleted(Long directorId) {
+    }
+}
@@ -0,0 +1,29 @@
+package ru.yandex.practicum.filmorate.storage.film.index;
+
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.time.Instant;
+
+/**
+ * Receives film and like changes after they are written, so in-memory indexes stay in sync with the database.
+ */
+public interface FilmChangeListener {
+    default void onFilmSaved(Film film) {
+    }
+
+    default void onFilmDeleted(Long filmId) {
+    }
+
+    default void onLikeAdded(Long filmId, Long userId) {
+    }
+
+    default void onLikeRemoved(Long filmId, Long userId) {
+    }
+
+    /**
+     * Same as {@link #onLikeRemoved(Long, Long)}, with the time the removed like was made.
+     */
+    default void onLikeRemoved(Long filmId, Long userId, Instant likedAt) {
+        onLikeRemoved(filmId, userId);
+    }
+}
@@ -0,0 +1,252 @@
+package ru.yandex.practicum.filmorate.storage.film.index;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmFacets;
+import ru.yandex.practicum.filmorate.model.FilmFilter;
+import ru.yandex.practicum.filmorate.model.Genre;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Bitmaps of film ids per genre, MPA rating, release year and director.
+ * Filters are answered by OR-ing bitmaps inside a facet and AND-ing the facets together;
+ * film ids are dense identity values, so a plain {@link BitSet} stays compact.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FilmFilterIndex implements FilmChangeListener, DirectorChangeListener {
+    private final JdbcTemplate jdbcTemplate;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Facets> films = new HashMap<>();
+    private final BitSet all = new BitSet();
+    private final Map<Long, BitSet> genres = new HashMap<>();
+    private final Map<Integer, BitSet> mpa = new HashMap<>();
+    private final NavigableMap<Integer, BitSet> years = new TreeMap<>();
+    private final Map<Long, BitSet> directors = new HashMap<>();
+
+    @PostConstruct
+    public void rebuild() {
+        log.info("Rebuilding film filter index");
+        Map<Long, Facets> loaded = new HashMap<>();
+        jdbcTemplate.query("SELECT film_id, mpa_id, YEAR(film_releaseDate) AS release_year FROM films", rs -> {
+            int mpaId = rs.getInt("mpa_id");
+            Integer mpaValue = rs.wasNull() ? null : mpaId;
+            int year = rs.getInt("release_year");
+            Integer releaseYear = rs.wasNull() ? null : year;
+            loaded.put(rs.getLong("film_id"),
+                    new Facets(new LinkedHashSet<>(), mpaValue, releaseYear, new LinkedHashSet<>()));
+        });
+        jdbcTemplate.query("SELECT film_id, genre_id FROM film_genres", rs -> {
+            Facets facets = loaded.get(rs.getLong("film_id"));
+            if (facets != null) {
+                facets.genreIds().add(rs.getLong("genre_id"));
+            }
+        });
+        jdbcTemplate.query("SELECT film_id, director_id FROM film_directors", rs -> {
+            Facets facets = loaded.get(rs.getLong("film_id"));
+            if (facets != null) {
+                facets.directorIds().add(rs.getLong("director_id"));
+            }
+        });
+        lock.writeLock().lock();
+        try {
+            films.clear();
+            all.clear();
+            genres.clear();
+            mpa.clear();
+            years.clear();
+            directors.clear();
+            loaded.forEach(this::link);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Filter index built for {} films", loaded.size());
+    }
+
+    public List<Long> filter(FilmFilter filter) {
+        lock.readLock().lock();
+        try {
+            BitSet matches = match(filter);
+            List<Long> ids = new ArrayList<>(matches.cardinality());
+            matches.stream().forEach(id -> ids.add((long) id));
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public FilmFacets facets(FilmFilter filter) {
+        lock.readLock().lock();
+        try {
+            BitSet matches = match(filter);
+            return new FilmFacets(matches.cardinality(), counts(genres, matches), counts(mpa, matches),
+                    counts(years, matches), counts(directors, matches));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void onFilmSaved(Film film) {
+        Set<Long> genreIds = new LinkedHashSet<>();
+        if (film.getGenres() != null) {
+            film.getGenres().stream()
+                    .filter(Objects::nonNull)
+                    .map(Genre::getId)
+                    .filter(Objects::nonNull)
+                    .forEach(id -> genreIds.add(id.longValue()));
+        }
+        Set<Long> directorIds = new LinkedHashSet<>();
+        if (film.getDirectors() != null) {
+            film.getDirectors().stream()
+                    .filter(Objects::nonNull)
+                    .map(Director::getId)
+                    .filter(Objects::nonNull)
+                    .forEach(directorIds::add);
+        }
+        Integer mpaId = film.getMpa() == null ? null : film.getMpa().getId();
+        Integer year = film.getReleaseDate() == null ? null : film.getReleaseDate().getYear();
+        lock.writeLock().lock();
+        try {
+            unlink(film.getId());
+            link(film.getId(), new Facets(genreIds, mpaId, year, directorIds));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onFilmDeleted(Long filmId) {
+        lock.writeLock().lock();
+        try {
+            unlink(filmId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onDirectorDeleted(Long directorId) {
+        lock.writeLock().lock();
+        try {
+            BitSet bitmap = directors.remove(directorId);
+            if (bitmap != null) {
+                bitmap.stream().forEach(id -> films.get((long) id).directorIds().remove(directorId));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private BitSet match(FilmFilter filter) {
+        BitSet result = (BitSet) all.clone();
+        if (filter.genreIds() != null) {
+            result.and(combine(genres, filter.genreIds(), filter.matchAll()));
+        }
+        if (filter.mpaIds() != null) {
+            result.and(combine(mpa, filter.mpaIds(), false));
+        }
+        if (filter.yearFrom() != null || filter.yearTo() != null) {
+            BitSet range = new BitSet();
+            int from = filter.yearFrom() == null ? Integer.MIN_VALUE : filter.yearFrom();
+            int to = filter.yearTo() == null ? Integer.MAX_VALUE : filter.yearTo();
+            if (from <= to) {
+                years.subMap(from, true, to, true).values().forEach(range::or);
+            }
+            result.and(range);
+        }
+        if (filter.directorIds() != null) {
+            result.and(combine(directors, filter.directorIds(), filter.matchAll()));
+        }
+        return result;
+    }
+
+    private static <K> BitSet combine(Map<K, BitSet> bitmaps, List<K> keys, boolean matchAll) {
+        BitSet result = null;
+        for (K key : keys) {
+            BitSet bitmap = bitmaps.getOrDefault(key, new BitSet());
+            if (result == null) {
+                result = (BitSet) bitmap.clone();
+            } else if (matchAll) {
+                result.and(bitmap);
+            } else {
+                result.or(bitmap);
+            }
+        }
+        return result == null ? new BitSet() : result;
+    }
+
+    private static <K extends Comparable<K>> Map<K, Integer> counts(Map<K, BitSet> bitmaps, BitSet matches) {
+        Map<K, Integer> counts = new TreeMap<>();
+        bitmaps.forEach((key, bitmap) -> {
+            if (bitmap.intersects(matches)) {
+                BitSet intersection = (BitSet) bitmap.clone();
+                intersection.and(matches);
+                counts.put(key, intersection.cardinality());
+            }
+        });
+        return counts;
+    }
+
+    private void link(Long filmId, Facets facets) {
+        int bit = Math.toIntExact(filmId);
+        films.put(filmId, facets);
+        all.set(bit);
+        facets.genreIds().forEach(genreId -> genres.computeIfAbsent(genreId, k -> new BitSet()).set(bit));
+        if (facets.mpaId() != null) {
+            mpa.computeIfAbsent(facets.mpaId(), k -> new BitSet()).set(bit);
+        }
+        if (facets.year() != null) {
+            years.computeIfAbsent(facets.year(), k -> new BitSet()).set(bit);
+        }
+        facets.directorIds().forEach(directorId -> directors.computeIfAbsent(directorId, k -> new BitSet()).set(bit));
+    }
+
+    private void unlink(Long filmId) {
+        Facets facets = films.remove(filmId);
+        if (facets == null) {
+            return;
+        }
+        int bit = Math.toIntExact(filmId);
+        all.clear(bit);
+        facets.genreIds().forEach(genreId -> clear(genres, genreId, bit));
+        if (facets.mpaId() != null) {
+            clear(mpa, facets.mpaId(), bit);
+        }
+        if (facets.year() != null) {
+            clear(years, facets.year(), bit);
+        }
+        facets.directorIds().forEach(directorId -> clear(directors, directorId, bit));
+    }
+
+    private static <K> void clear(Map<K, BitSet> bitmaps, K key, int bit) {
+        BitSet bitmap = bitmaps.get(key);
+        if (bitmap != null) {
+            bitmap.clear(bit);
+            if (bitmap.isEmpty()) {
+                bitmaps.remove(key);
+            }
+        }
+    }
+
+    private record Facets(Set<Long> genreIds, Integer mpaId, Integer year, Set<Long> directorIds) {
+    }
+}
@@ -0,0 +1,260 @@
+package ru.yandex.practicum.filmorate.storage.film.index;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static ru.yandex.practicum.filmorate.util.TextUtil.fold;
+
+/**
+ * Trigram inverted index over case-folded film titles and director names.
+ * Candidates come from intersecting posting lists and are verified with a substring check,
+ * so results match the former LIKE '%query%' semantics.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FilmSearchIndex implements FilmChangeListener, DirectorChangeListener {
+    private static final int GRAM = 3;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PopularityIndex popularityIndex;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, String> titles = new HashMap<>();
+    private final Map<Long, String> directorNames = new HashMap<>();
+    private final Map<Long, Set<Long>> filmDirectors = new HashMap<>();
+    private final Map<Long, Set<Long>> directorFilms = new HashMap<>();
+    private final Map<Long, Set<Long>> titlePostings = new HashMap<>();
+    private final Map<Long, Set<Long>> directorPostings = new HashMap<>();
+
+    @PostConstruct
+    public void rebuild() {
+        log.info("Rebuilding film search index");
+        lock.writeLock().lock();
+        try {
+            titles.clear();
+            directorNames.clear();
+            filmDirectors.clear();
+            directorFilms.clear();
+            titlePostings.clear();
+            directorPostings.clear();
+            jdbcTemplate.query("SELECT film_id, film_name FROM films", rs -> {
+                putTitle(rs.getLong("film_id"), rs.getString("film_name"));
+            });
+            jdbcTemplate.query("SELECT director_id, director_name FROM directors", rs -> {
+                putDirectorName(rs.getLong("director_id"), rs.getString("director_name"));
+            });
+            jdbcTemplate.query("SELECT film_id, director_id FROM film_directors", rs -> {
+                link(rs.getLong("film_id"), rs.getLong("director_id"));
+            });
+            log.info("Search index built for {} films and {} directors", titles.size(), directorNames.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<Long> search(String query, boolean byTitle, boolean byDirector, int limit, int offset) {
+        String folded = fold(query);
+        Set<Long> matches = new HashSet<>();
+        lock.readLock().lock();
+        try {
+            if (byTitle) {
+                matches.addAll(find(folded, titles, titlePostings));
+            }
+            if (byDirector) {
+                for (Long directorId : find(folded, directorNames, directorPostings)) {
+                    matches.addAll(directorFilms.getOrDefault(directorId, Set.of()));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return topByPopularity(matches, limit, offset);
+    }
+
+    @Override
+    public void onFilmSaved(Film film) {
+        lock.writeLock().lock();
+        try {
+            removeFilm(film.getId());
+            putTitle(film.getId(), film.getName());
+            if (film.getDirectors() != null) {
+                film.getDirectors().stream()
+                        .filter(Objects::nonNull)
+                        .forEach(director -> link(film.getId(), director.getId()));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onFilmDeleted(Long filmId) {
+        lock.writeLock().lock();
+        try {
+            removeFilm(filmId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onDirectorSaved(Director director) {
+        lock.writeLock().lock();
+        try {
+            String old = directorNames.remove(director.getId());
+            if (old != null) {
+                unpost(director.getId(), old, directorPostings);
+            }
+            putDirectorName(director.getId(), director.getName());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onDirectorDeleted(Long directorId) {
+        lock.writeLock().lock();
+        try {
+            String old = directorNames.remove(directorId);
+            if (old != null) {
+                unpost(directorId, old, directorPostings);
+            }
+            Set<Long> films = directorFilms.remove(directorId);
+            if (films != null) {
+                films.forEach(filmId -> filmDirectors.getOrDefault(filmId, new HashSet<>()).remove(directorId));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private Set<Long> find(String query, Map<Long, String> texts, Map<Long, Set<Long>> postings) {
+        Set<Long> found = new HashSet<>();
+        if (query.length() < GRAM) {
+            texts.forEach((id, text) -> {
+                if (text.contains(query)) {
+                    found.add(id);
+                }
+            });
+            return found;
+        }
+        List<Set<Long>> lists = new ArrayList<>();
+        for (long gram : grams(query)) {
+            Set<Long> posting = postings.get(gram);
+            if (posting == null) {
+                return found;
+            }
+            lists.add(posting);
+        }
+        lists.sort(Comparator.comparingInt(Set::size));
+        for (Long id : lists.getFirst()) {
+            if (containsInAll(lists, id) && texts.get(id).contains(query)) {
+                found.add(id);
+            }
+        }
+        return found;
+    }
+
+    private List<Long> topByPopularity(Set<Long> filmIds, int limit, int offset) {
+        Comparator<Ranked> worstFirst = Comparator.comparingLong(Ranked::likes)
+                .thenComparing(Comparator.comparingLong(Ranked::filmId).reversed());
+        PriorityQueue<Ranked> top = new PriorityQueue<>(worstFirst);
+        int bound = offset + limit;
+        for (Long filmId : filmIds) {
+            top.add(new Ranked(filmId, popularityIndex.getLikes(filmId)));
+            if (top.size() > bound) {
+                top.poll();
+            }
+        }
+        List<Long> ranked = new ArrayList<>(top.size());
+        while (!top.isEmpty()) {
+            ranked.add(top.poll().filmId());
+        }
+        List<Long> ordered = ranked.reversed();
+        return offset >= ordered.size() ? List.of() : ordered.subList(offset, ordered.size());
+    }
+
+    private void putTitle(Long filmId, String title) {
+        String folded = fold(title);
+        titles.put(filmId, folded);
+        post(filmId, folded, titlePostings);
+    }
+
+    private void putDirectorName(Long directorId, String name) {
+        String folded = fold(name);
+        directorNames.put(directorId, folded);
+        post(directorId, folded, directorPostings);
+    }
+
+    private void link(Long filmId, Long directorId) {
+        filmDirectors.computeIfAbsent(filmId, id -> new HashSet<>()).add(directorId);
+        directorFilms.computeIfAbsent(directorId, id -> new HashSet<>()).add(filmId);
+    }
+
+    private void removeFilm(Long filmId) {
+        String old = titles.remove(filmId);
+        if (old != null) {
+            unpost(filmId, old, titlePostings);
+        }
+        Set<Long> directors = filmDirectors.remove(filmId);
+        if (directors != null) {
+            directors.forEach(directorId -> directorFilms.getOrDefault(directorId, new HashSet<>()).remove(filmId));
+        }
+    }
+
+    private static void post(Long id, String text, Map<Long, Set<Long>> postings) {
+        for (long gram : grams(text)) {
+            postings.computeIfAbsent(gram, g -> new HashSet<>()).add(id);
+        }
+    }
+
+    private static void unpost(Long id, String text, Map<Long, Set<Long>> postings) {
+        for (long gram : grams(text)) {
+            Set<Long> posting = postings.get(gram);
+            if (posting != null) {
+                posting.remove(id);
+                if (posting.isEmpty()) {
+                    postings.remove(gram);
+                }
+            }
+        }
+    }
+
+    private static boolean containsInAll(List<Set<Long>> lists, Long id) {
+        for (int i = 1; i < lists.size(); i++) {
+            if (!lists.get(i).contains(id)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Set<Long> grams(String text) {
+        Set<Long> grams = new LinkedHashSet<>();
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            grams.add(((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2));
+        }
+        return grams;
+    }
+
+    private record Ranked(long filmId, long likes) {
+    }
+}
@@ -0,0 +1,218 @@
+package ru.yandex.practicum.filmorate.storage.film.index;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+/**
+ * Item-to-item collaborative filtering: for every film, how many users liked it together with each other film.
+ * A candidate's score is the sum of its cosine similarities to the films the user liked.
+ * Built from the likes table at startup and updated incrementally on every like change.
+ * Users with more than {@link #MAX_LIKES_PER_USER} likes are left out of the counts: each like would cost
+ * a pass over all their other films, and someone who likes everything says little about which films go together.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ItemSimilarityIndex implements FilmChangeListener {
+    private static final Comparator<Scored> WORST_FIRST = Comparator.comparingDouble(Scored::score)
+            .thenComparing(Comparator.comparingLong(Scored::filmId).reversed());
+    private static final int MAX_LIKES_PER_USER = 300;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Set<Long>> userLikes = new HashMap<>();
+    private final Map<Long, Integer> filmLikes = new HashMap<>();
+    private final Map<Long, Map<Long, Integer>> coLikes = new HashMap<>();
+
+    @PostConstruct
+    public void rebuild() {
+        log.info("Rebuilding item similarity index");
+        lock.writeLock().lock();
+        try {
+            userLikes.clear();
+            filmLikes.clear();
+            coLikes.clear();
+            jdbcTemplate.query("SELECT user_id, film_id FROM likes", rs -> {
+                like(rs.getLong("user_id"), rs.getLong("film_id"));
+            });
+            log.info("Item similarity index built for {} films liked by {} users", filmLikes.size(), userLikes.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Top films by similarity to the user's likes, excluding films the user already liked.
+     */
+    public List<Long> recommend(Long userId, int count) {
+        Map<Long, Double> scores;
+        lock.readLock().lock();
+        try {
+            Set<Long> liked = userLikes.getOrDefault(userId, Set.of());
+            scores = liked.parallelStream()
+                    .flatMap(filmId -> coLikes.getOrDefault(filmId, Map.of()).entrySet().stream()
+                            .filter(entry -> !liked.contains(entry.getKey()))
+                            .map(entry -> new Scored(entry.getKey(), entry.getValue()
+                                    / Math.sqrt((double) filmLikes.get(filmId) * filmLikes.get(entry.getKey())))))
+                    .collect(Collectors.toMap(Scored::filmId, Scored::score, Double::sum));
+        } finally {
+            lock.readLock().unlock();
+        }
+        PriorityQueue<Scored> top = new PriorityQueue<>(WORST_FIRST);
+        scores.forEach((filmId, score) -> {
+            top.add(new Scored(filmId, score));
+            if (top.size() > count) {
+                top.poll();
+            }
+        });
+        List<Long> ids = new ArrayList<>(top.size());
+        while (!top.isEmpty()) {
+            ids.add(top.poll().filmId());
+        }
+        return ids.reversed();
+    }
+
+    public Set<Long> getLikedFilms(Long userId) {
+        lock.readLock().lock();
+        try {
+            return Set.copyOf(userLikes.getOrDefault(userId, Set.of()));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Sum of the given user weights over the users who liked each film.
+     */
+    public Map<Long, Double> sumLikes(Map<Long, Double> userWeights) {
+        Map<Long, Double> scores = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            userWeights.forEach((userId, weight) -> {
+                for (Long filmId : userLikes.getOrDefault(userId, Set.of())) {
+                    scores.merge(filmId, weight, Double::sum);
+                }
+            });
+        } finally {
+            lock.readLock().unlock();
+        }
+        return scores;
+    }
+
+    @Override
+    public void onFilmDeleted(Long filmId) {
+        lock.writeLock().lock();
+        try {
+            for (Long userId : new ArrayList<>(userLikes.keySet())) {
+                if (userLikes.get(userId).contains(filmId)) {
+                    unlike(userId, filmId);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onLikeAdded(Long filmId, Long userId) {
+        lock.writeLock().lock();
+        try {
+            like(userId, filmId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onLikeRemoved(Long filmId, Long userId) {
+        lock.writeLock().lock();
+        try {
+            unlike(userId, filmId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void like(Long userId, Long filmId) {
+        Set<Long> liked = userLikes.computeIfAbsent(userId, id -> new HashSet<>());
+        if (!liked.add(filmId)) {
+            return;
+        }
+        if (liked.size() <= MAX_LIKES_PER_USER) {
+            count(filmId, liked, 1);
+        } else if (liked.size() == MAX_LIKES_PER_USER + 1) {
+            liked.remove(filmId);
+            countAll(liked, -1);
+            liked.add(filmId);
+        }
+    }
+
+    private void unlike(Long userId, Long filmId) {
+        Set<Long> liked = userLikes.get(userId);
+        if (liked == null || !liked.remove(filmId)) {
+            return;
+        }
+        if (liked.size() < MAX_LIKES_PER_USER) {
+            count(filmId, liked, -1);
+        } else if (liked.size() == MAX_LIKES_PER_USER) {
+            countAll(liked, 1);
+        }
+        if (liked.isEmpty()) {
+            userLikes.remove(userId);
+        }
+    }
+
+    /**
+     * Adds or withdraws all of one user's likes, as if liked one by one.
+     */
+    private void countAll(Set<Long> liked, int delta) {
+        Set<Long> counted = new HashSet<>();
+        for (Long filmId : liked) {
+            counted.add(filmId);
+            count(filmId, counted, delta);
+        }
+    }
+
+    /**
+     * Adds {@code delta} to the like count of the film and to its co-like count with every other film of the set.
+     */
+    private void count(Long filmId, Set<Long> liked, int delta) {
+        change(filmLikes, filmId, delta);
+        for (Long other : liked) {
+            if (!other.equals(filmId)) {
+                coLike(filmId, other, delta);
+                coLike(other, filmId, delta);
+            }
+        }
+    }
+
+    private void coLike(Long filmId, Long other, int delta) {
+        Map<Long, Integer> row = coLikes.computeIfAbsent(filmId, id -> new HashMap<>());
+        change(row, other, delta);
+        if (row.isEmpty()) {
+            coLikes.remove(filmId);
+        }
+    }
+
+    private static void change(Map<Long, Integer> counts, Long key, int delta) {
+        counts.merge(key, delta, (count, d) -> count + d == 0 ? null : count + d);
+    }
+
+    private record Scored(long filmId, double score) {
+    }
+}
@@ -0,0 +1,154 @@
+package ru.yandex.practicum.filmorate.storage.film.index;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * User and film latent factors trained offline by {@link MatrixFactorizationTrainer}.
+ * Factors are flat float arrays indexed by position in the sorted id arrays, and
+ * a recommendation is a dot-product top-K over all films.
+ */
+@Slf4j
+@Component
+public class MatrixFactorizationModel {
+    private static final int MAGIC = 0x464d4631;
+    private static final Comparator<Scored> WORST_FIRST = Comparator.comparingDouble(Scored::score)
+            .thenComparing(Comparator.comparingLong(Scored::filmId).reversed());
+
+    private volatile Factors factors;
+
+    public boolean isLoaded() {
+        return factors != null;
+    }
+
+    public void publish(Factors factors) {
+        this.factors = factors;
+        log.info("Matrix factorization model published: rank {}, {} users, {} films",
+                factors.rank(), factors.userIds().length, factors.filmIds().length);
+    }
+
+    /**
+     * Top films by predicted preference, or empty when there is no model or the user was not in the training data.
+     */
+    public Optional<List<Long>> recommend(Long userId, Set<Long> liked, int count) {
+        Factors current = factors;
+        if (current == null) {
+            return Optional.empty();
+        }
+        int user = Arrays.binarySearch(current.userIds(), userId);
+        if (user < 0) {
+            return Optional.empty();
+        }
+        int rank = current.rank();
+        float[] userVectors = current.userVectors();
+        float[] filmVectors = current.filmVectors();
+        int userOffset = user * rank;
+        PriorityQueue<Scored> top = new PriorityQueue<>(WORST_FIRST);
+        for (int film = 0; film < current.filmIds().length; film++) {
+            long filmId = current.filmIds()[film];
+            if (liked.contains(filmId)) {
+                continue;
+            }
+            int filmOffset = film * rank;
+            float score = 0;
+            for (int k = 0; k < rank; k++) {
+                score += userVectors[userOffset + k] * filmVectors[filmOffset + k];
+            }
+            if (top.size() < count) {
+                top.add(new Scored(filmId, score));
+            } else if (score > top.peek().score()) {
+                top.poll();
+                top.add(new Scored(filmId, score));
+            }
+        }
+        List<Long> ids = new ArrayList<>(top.size());
+        while (!top.isEmpty()) {
+            ids.add(top.poll().filmId());
+        }
+        return Optional.of(ids.reversed());
+    }
+
+    public static void save(Factors factors, Path path) throws IOException {
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(factors.rank());
+            writeIds(out, factors.userIds());
+            writeVectors(out, factors.userVectors());
+            writeIds(out, factors.filmIds());
+            writeVectors(out, factors.filmVectors());
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public static Factors load(Path path) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a matrix factorization model: " + path);
+            }
+            int rank = in.readInt();
+            long[] userIds = readIds(in);
+            float[] userVectors = readVectors(in, userIds.length * rank);
+            long[] filmIds = readIds(in);
+            float[] filmVectors = readVectors(in, filmIds.length * rank);
+            return new Factors(rank, userIds, userVectors, filmIds, filmVectors);
+        }
+    }
+
+    private static void writeIds(DataOutputStream out, long[] ids) throws IOException {
+        out.writeInt(ids.length);
+        for (long id : ids) {
+            out.writeLong(id);
+        }
+    }
+
+    private static void writeVectors(DataOutputStream out, float[] vectors) throws IOException {
+        for (float value : vectors) {
+            out.writeFloat(value);
+        }
+    }
+
+    private static long[] readIds(DataInputStream in) throws IOException {
+        long[] ids = new long[in.readInt()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = in.readLong();
+        }
+        return ids;
+    }
+
+    private static float[] readVectors(DataInputStream in, int length) throws IOException {
+        float[] vectors = new float[length];
+        for (int i = 0; i < length; i++) {
+            vectors[i] = in.readFloat();
+        }
+        return vectors;
+    }
+
+    /**
+     * Ids are sorted ascending; the factors of the id at position i are [i * rank, (i + 1) * rank).
+     */
+    public record Factors(int rank, long[] userIds, float[] userVectors, long[] filmIds, float[] filmVectors) {
+    }
+
+    private record Scored(long filmId, float score) {
+    }
+}
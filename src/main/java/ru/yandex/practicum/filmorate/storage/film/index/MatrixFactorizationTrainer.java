@@ -0,0 +1,232 @@
+package ru.yandex.practicum.filmorate.storage.film.index;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.film.index.MatrixFactorizationModel.Factors;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Trains implicit-feedback ALS (Hu, Koren, Volinsky) on the likes table: every like is a positive preference
+ * with confidence 1 + ALPHA, every other pair a zero preference with confidence 1.
+ * Each half-iteration solves one rank x rank system per user or film, spread over all cores by a fork-join pool.
+ * Factors are persisted after training and loaded back on startup.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(value = "filmorate.recommendations.mf.enabled", havingValue = "true")
+public class MatrixFactorizationTrainer {
+    private static final double ALPHA = 40;
+    private static final double LAMBDA = 0.1;
+    private static final long SEED = 42;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MatrixFactorizationModel model;
+    private final Path path;
+    private final int rank;
+    private final int iterations;
+    private final ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+    public MatrixFactorizationTrainer(JdbcTemplate jdbcTemplate,
+                                      MatrixFactorizationModel model,
+                                      @Value("${filmorate.recommendations.mf.path}") Path path,
+                                      @Value("${filmorate.recommendations.mf.rank}") int rank,
+                                      @Value("${filmorate.recommendations.mf.iterations}") int iterations) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.model = model;
+        this.path = path;
+        this.rank = rank;
+        this.iterations = iterations;
+    }
+
+    @PostConstruct
+    public void loadSaved() {
+        if (!Files.exists(path)) {
+            log.info("No saved matrix factorization model at {}", path);
+            return;
+        }
+        try {
+            model.publish(MatrixFactorizationModel.load(path));
+        } catch (IOException e) {
+            log.warn("Could not load matrix factorization model from {}", path, e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    @Scheduled(fixedDelayString = "${filmorate.recommendations.mf.train-interval}",
+            initialDelayString = "${filmorate.recommendations.mf.initial-delay}")
+    public void train() {
+        log.info("Training matrix factorization model");
+        long started = System.currentTimeMillis();
+        List<Long> userIds = new ArrayList<>();
+        List<List<Long>> userLikes = new ArrayList<>();
+        TreeSet<Long> filmIdSet = new TreeSet<>();
+        jdbcTemplate.query("SELECT user_id, film_id FROM likes ORDER BY user_id, film_id", rs -> {
+            long userId = rs.getLong("user_id");
+            long filmId = rs.getLong("film_id");
+            if (userIds.isEmpty() || userIds.getLast() != userId) {
+                userIds.add(userId);
+                userLikes.add(new ArrayList<>());
+            }
+            userLikes.getLast().add(filmId);
+            filmIdSet.add(filmId);
+        });
+        if (userIds.isEmpty()) {
+            log.info("No likes to train on");
+            return;
+        }
+
+        long[] users = userIds.stream().mapToLong(Long::longValue).toArray();
+        long[] films = filmIdSet.stream().mapToLong(Long::longValue).toArray();
+        int[][] filmsOfUser = new int[users.length][];
+        int[] filmDegree = new int[films.length];
+        for (int u = 0; u < users.length; u++) {
+            filmsOfUser[u] = userLikes.get(u).stream().mapToInt(id -> Arrays.binarySearch(films, id)).toArray();
+            for (int f : filmsOfUser[u]) {
+                filmDegree[f]++;
+            }
+        }
+        int[][] usersOfFilm = new int[films.length][];
+        for (int f = 0; f < films.length; f++) {
+            usersOfFilm[f] = new int[filmDegree[f]];
+        }
+        int[] filled = new int[films.length];
+        for (int u = 0; u < users.length; u++) {
+            for (int f : filmsOfUser[u]) {
+                usersOfFilm[f][filled[f]++] = u;
+            }
+        }
+
+        float[] userVectors = randomVectors(users.length);
+        float[] filmVectors = randomVectors(films.length);
+        for (int i = 0; i < iterations; i++) {
+            solve(userVectors, filmVectors, filmsOfUser);
+            solve(filmVectors, userVectors, usersOfFilm);
+        }
+
+        Factors factors = new Factors(rank, users, userVectors, films, filmVectors);
+        try {
+            MatrixFactorizationModel.save(factors, path);
+        } catch (IOException e) {
+            log.warn("Could not save matrix factorization model to {}", path, e);
+        }
+        model.publish(factors);
+        log.info("Matrix factorization model trained on {} users and {} films in {} ms",
+                users.length, films.length, System.currentTimeMillis() - started);
+    }
+
+    /**
+     * Recomputes every row of {@code target} with {@code fixed} held constant:
+     * x = (FᵀF + λI + Σ ALPHA·f·fᵀ)⁻¹ · Σ (1 + ALPHA)·f over the row's liked columns f.
+     */
+    private void solve(float[] target, float[] fixed, int[][] liked) {
+        double[] gram = gram(fixed);
+        try {
+            pool.submit(() -> IntStream.range(0, liked.length).parallel().forEach(row -> {
+                double[] a = gram.clone();
+                double[] b = new double[rank];
+                for (int k = 0; k < rank; k++) {
+                    a[k * rank + k] += LAMBDA;
+                }
+                for (int col : liked[row]) {
+                    int offset = col * rank;
+                    for (int i = 0; i < rank; i++) {
+                        double fi = fixed[offset + i];
+                        b[i] += (1 + ALPHA) * fi;
+                        for (int j = 0; j < rank; j++) {
+                            a[i * rank + j] += ALPHA * fi * fixed[offset + j];
+                        }
+                    }
+                }
+                double[] x = choleskySolve(a, b);
+                for (int k = 0; k < rank; k++) {
+                    target[row * rank + k] = (float) x[k];
+                }
+            })).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Matrix factorization training interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Matrix factorization training failed", e.getCause());
+        }
+    }
+
+    private double[] gram(float[] vectors) {
+        double[] gram = new double[rank * rank];
+        for (int offset = 0; offset < vectors.length; offset += rank) {
+            for (int i = 0; i < rank; i++) {
+                for (int j = 0; j < rank; j++) {
+                    gram[i * rank + j] += (double) vectors[offset + i] * vectors[offset + j];
+                }
+            }
+        }
+        return gram;
+    }
+
+    /**
+     * Solves a·x = b for a symmetric positive-definite a in place.
+     */
+    private double[] choleskySolve(double[] a, double[] b) {
+        for (int j = 0; j < rank; j++) {
+            double diagonal = a[j * rank + j];
+            for (int k = 0; k < j; k++) {
+                diagonal -= a[j * rank + k] * a[j * rank + k];
+            }
+            double l = Math.sqrt(diagonal);
+            a[j * rank + j] = l;
+            for (int i = j + 1; i < rank; i++) {
+                double value = a[i * rank + j];
+                for (int k = 0; k < j; k++) {
+                    value -= a[i * rank + k] * a[j * rank + k];
+                }
+                a[i * rank + j] = value / l;
+            }
+        }
+        double[] y = new double[rank];
+        for (int i = 0; i < rank; i++) {
+            double value = b[i];
+            for (int k = 0; k < i; k++) {
+                value -= a[i * rank + k] * y[k];
+            }
+            y[i] = value / a[i * rank + i];
+        }
+        double[] x = new double[rank];
+        for (int i = rank - 1; i >= 0; i--) {
+            double value = y[i];
+            for (int k = i + 1; k < rank; k++) {
+                value -= a[k * rank + i] * x[k];
+            }
+            x[i] = value / a[i * rank + i];
+        }
+        return x;
+    }
+
+    private float[] randomVectors(int rows) {
+        Random random = new Random(SEED + rows);
+        float[] vectors = new float[rows * rank];
+        for (int i = 0; i < vectors.length; i++) {
+            vectors[i] = (float) (random.nextGaussian() * 0.01);
+        }
+        return vectors;
+    }
+}
@@ -0,0 +1,227 @@
+package ru.yandex.practicum.filmorate.storage.film.index;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.CursorPage;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Films ordered by like count, globally and per genre, release year and (genre, year).
+ * Built from the database at startup and updated incrementally on every like change.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PopularityIndex implements FilmChangeListener {
+    private static final Comparator<Ranked> ORDER = Comparator.comparingLong(Ranked::likes).reversed()
+            .thenComparingLong(Ranked::filmId);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Stats> films = new HashMap<>();
+    private final Map<BucketKey, NavigableSet<Ranked>> buckets = new HashMap<>();
+
+    @PostConstruct
+    public void rebuild() {
+        log.info("Rebuilding film popularity index");
+        Map<Long, Stats> loaded = new HashMap<>();
+        jdbcTemplate.query("SELECT film_id, like_count, YEAR(film_releaseDate) AS release_year FROM films", rs -> {
+            int year = rs.getInt("release_year");
+            Integer releaseYear = rs.wasNull() ? null : year;
+            loaded.put(rs.getLong("film_id"), new Stats(rs.getLong("like_count"), releaseYear, new LinkedHashSet<>()));
+        });
+        jdbcTemplate.query("SELECT film_id, genre_id FROM film_genres", rs -> {
+            Stats stats = loaded.get(rs.getLong("film_id"));
+            if (stats != null) {
+                stats.genreIds().add(rs.getLong("genre_id"));
+            }
+        });
+        lock.writeLock().lock();
+        try {
+            films.clear();
+            buckets.clear();
+            loaded.forEach(this::link);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Popularity index built for {} films", loaded.size());
+    }
+
+    public CursorPage<Long> getTop(Long genreId, Integer year, int count, String cursor) {
+        Ranked after = parseCursor(cursor);
+        lock.readLock().lock();
+        try {
+            NavigableSet<Ranked> bucket = buckets.get(new BucketKey(genreId, year));
+            if (bucket == null) {
+                return new CursorPage<>(List.of(), null);
+            }
+            List<Long> ids = new ArrayList<>(Math.min(count, bucket.size()));
+            Ranked last = null;
+            for (Ranked ranked : after == null ? bucket : bucket.tailSet(after, false)) {
+                if (ids.size() == count) {
+                    return new CursorPage<>(ids, last.likes() + ":" + last.filmId());
+                }
+                ids.add(ranked.filmId());
+                last = ranked;
+            }
+            return new CursorPage<>(ids, null);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long getLikes(Long filmId) {
+        lock.readLock().lock();
+        try {
+            Stats stats = films.get(filmId);
+            return stats == null ? 0 : stats.likes();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean hasGenre(Long filmId, Long genreId) {
+        lock.readLock().lock();
+        try {
+            Stats stats = films.get(filmId);
+            return stats != null && stats.genreIds().contains(genreId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void onFilmSaved(Film film) {
+        Set<Long> genreIds = new LinkedHashSet<>();
+        if (film.getGenres() != null) {
+            film.getGenres().stream().map(Genre::getId).forEach(id -> genreIds.add(id.longValue()));
+        }
+        Integer year = film.getReleaseDate() == null ? null : film.getReleaseDate().getYear();
+        lock.writeLock().lock();
+        try {
+            Stats old = unlink(film.getId());
+            link(film.getId(), new Stats(old == null ? 0 : old.likes(), year, genreIds));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onFilmDeleted(Long filmId) {
+        lock.writeLock().lock();
+        try {
+            unlink(filmId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onLikeAdded(Long filmId, Long userId) {
+        changeLikes(filmId, 1);
+    }
+
+    @Override
+    public void onLikeRemoved(Long filmId, Long userId) {
+        changeLikes(filmId, -1);
+    }
+
+    /**
+     * Applies a correction made to the stored like count outside the like listeners.
+     */
+    public void adjustLikes(Long filmId, long delta) {
+        changeLikes(filmId, delta);
+    }
+
+    private void changeLikes(Long filmId, long delta) {
+        lock.writeLock().lock();
+        try {
+            Stats old = unlink(filmId);
+            if (old != null) {
+                link(filmId, new Stats(Math.max(0, old.likes() + delta), old.year(), old.genreIds()));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void link(Long filmId, Stats stats) {
+        films.put(filmId, stats);
+        Ranked ranked = new Ranked(stats.likes(), filmId);
+        for (BucketKey key : keys(stats)) {
+            buckets.computeIfAbsent(key, k -> new TreeSet<>(ORDER)).add(ranked);
+        }
+    }
+
+    private Stats unlink(Long filmId) {
+        Stats stats = films.remove(filmId);
+        if (stats == null) {
+            return null;
+        }
+        Ranked ranked = new Ranked(stats.likes(), filmId);
+        for (BucketKey key : keys(stats)) {
+            NavigableSet<Ranked> bucket = buckets.get(key);
+            bucket.remove(ranked);
+            if (bucket.isEmpty()) {
+                buckets.remove(key);
+            }
+        }
+        return stats;
+    }
+
+    private static List<BucketKey> keys(Stats stats) {
+        List<BucketKey> keys = new ArrayList<>();
+        keys.add(new BucketKey(null, null));
+        if (stats.year() != null) {
+            keys.add(new BucketKey(null, stats.year()));
+        }
+        for (Long genreId : stats.genreIds()) {
+            keys.add(new BucketKey(genreId, null));
+            if (stats.year() != null) {
+                keys.add(new BucketKey(genreId, stats.year()));
+            }
+        }
+        return keys;
+    }
+
+    private static Ranked parseCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        String[] parts = cursor.split(":");
+        try {
+            if (parts.length == 2) {
+                return new Ranked(Long.parseLong(parts[0]), Long.parseLong(parts[1]));
+            }
+        } catch (NumberFormatException e) {
+            log.error("Invalid popularity cursor: {}", cursor);
+        }
+        throw new ValidationException("Invalid cursor: " + cursor);
+    }
+
+    private record Ranked(long likes, long filmId) {
+    }
+
+    private record Stats(long likes, Integer year, Set<Long> genreIds) {
+    }
+
+    private record BucketKey(Long genreId, Integer year) {
+    }
+}
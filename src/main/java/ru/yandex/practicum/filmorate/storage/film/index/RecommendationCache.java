@@ -0,0 +1,201 @@
+package ru.yandex.practicum.filmorate.storage.film.index;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Recommended film ids per user, evicted least recently used beyond a fixed number of users.
+ * An entry older than the refresh interval is still served while a background thread recomputes it;
+ * past the TTL it is recomputed inline. A like or unlike by the user drops all their entries.
+ * Each user's entries live in a bucket object, and a result is stored only if its bucket is still current,
+ * so a computation that raced with an invalidation is never published.
+ * A user without a bucket gets a pending one for the computation, which joins the LRU only if it yields
+ * films, so lookups for unknown users or users without recommendations never evict anyone.
+ * Empty results are not cached, and a bucket keeps at most {@link #MAX_VARIANTS} variants, dropping the oldest.
+ */
+@Slf4j
+@Component
+public class RecommendationCache implements FilmChangeListener {
+    private static final int MAX_VARIANTS = 8;
+
+    private final int maxUsers;
+    private final long ttlNanos;
+    private final long refreshNanos;
+    private final Map<Long, Bucket> buckets;
+    private final Map<Long, Bucket> pending = new HashMap<>();
+    private final ExecutorService refresher;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder staleHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    @Autowired
+    public RecommendationCache(@Value("${filmorate.recommendations.cache.max-users}") int maxUsers,
+                               @Value("${filmorate.recommendations.cache.ttl}") Duration ttl,
+                               @Value("${filmorate.recommendations.cache.refresh-after}") Duration refreshAfter) {
+        this(maxUsers, ttl, refreshAfter, Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "recommendation-refresher");
+            thread.setDaemon(true);
+            return thread;
+        }));
+    }
+
+    /**
+     * Runs background refreshes on {@code refresher}, which the cache shuts down with itself.
+     */
+    RecommendationCache(int maxUsers, Duration ttl, Duration refreshAfter, ExecutorService refresher) {
+        this.maxUsers = maxUsers;
+        this.ttlNanos = ttl.toNanos();
+        this.refreshNanos = refreshAfter.toNanos();
+        this.refresher = refresher;
+        this.buckets = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Bucket> eldest) {
+                if (size() > RecommendationCache.this.maxUsers) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        refresher.shutdown();
+        refresher.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    public List<Long> get(Long userId, String variant, Supplier<List<Long>> loader) {
+        long now = System.nanoTime();
+        Bucket bucket = bucket(userId);
+        Entry entry = bucket.entries.get(variant);
+        if (entry != null && now - entry.computedAt() < ttlNanos) {
+            if (now - entry.computedAt() >= refreshNanos) {
+                staleHits.increment();
+                refresh(userId, bucket, variant, loader);
+            } else {
+                hits.increment();
+            }
+            return entry.ids();
+        }
+        misses.increment();
+        List<Long> ids;
+        try {
+            ids = loader.get();
+        } catch (RuntimeException e) {
+            synchronized (buckets) {
+                pending.remove(userId, bucket);
+            }
+            throw e;
+        }
+        store(userId, bucket, variant, ids, now);
+        return ids;
+    }
+
+    public Stats getStats() {
+        int size;
+        synchronized (buckets) {
+            size = buckets.size();
+        }
+        return new Stats(size, hits.sum(), staleHits.sum(), misses.sum(), evictions.sum(), invalidations.sum());
+    }
+
+    public void invalidate(Long userId) {
+        Bucket removed;
+        synchronized (buckets) {
+            removed = buckets.remove(userId);
+            pending.remove(userId);
+        }
+        if (removed != null) {
+            invalidations.increment();
+        }
+    }
+
+    @Override
+    public void onLikeAdded(Long filmId, Long userId) {
+        invalidate(userId);
+    }
+
+    @Override
+    public void onLikeRemoved(Long filmId, Long userId) {
+        invalidate(userId);
+    }
+
+    private Bucket bucket(Long userId) {
+        synchronized (buckets) {
+            Bucket bucket = buckets.get(userId);
+            return bucket != null ? bucket : pending.computeIfAbsent(userId, id -> new Bucket());
+        }
+    }
+
+    private void refresh(Long userId, Bucket bucket, String variant, Supplier<List<Long>> loader) {
+        if (!bucket.refreshing.add(variant)) {
+            return;
+        }
+        refresher.execute(() -> {
+            try {
+                long started = System.nanoTime();
+                store(userId, bucket, variant, loader.get(), started);
+            } catch (RuntimeException e) {
+                log.warn("Could not refresh recommendations for user with id: {}", userId, e);
+            } finally {
+                bucket.refreshing.remove(variant);
+            }
+        });
+    }
+
+    private void store(Long userId, Bucket bucket, String variant, List<Long> ids, long computedAt) {
+        synchronized (buckets) {
+            if (pending.get(userId) == bucket) {
+                pending.remove(userId);
+                if (ids.isEmpty()) {
+                    return;
+                }
+                buckets.put(userId, bucket);
+            }
+            if (buckets.get(userId) != bucket) {
+                return;
+            }
+            if (ids.isEmpty()) {
+                bucket.entries.remove(variant);
+                return;
+            }
+            if (!bucket.entries.containsKey(variant) && bucket.entries.size() >= MAX_VARIANTS) {
+                bucket.entries.entrySet().stream()
+                        .min(Comparator.comparingLong(entry -> entry.getValue().computedAt()))
+                        .ifPresent(oldest -> bucket.entries.remove(oldest.getKey()));
+            }
+            bucket.entries.put(variant, new Entry(List.copyOf(ids), computedAt));
+        }
+    }
+
+    public record Stats(int users, long hits, long staleHits, long misses, long evictions, long invalidations) {
+    }
+
+    private record Entry(List<Long> ids, long computedAt) {
+    }
+
+    private static class Bucket {
+        private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+        private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+    }
+}
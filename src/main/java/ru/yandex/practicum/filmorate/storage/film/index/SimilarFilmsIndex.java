@@ -0,0 +1,637 @@
+package ru.yandex.practicum.filmorate.storage.film.index;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Approximate nearest neighbours over film feature vectors, kept in an HNSW graph.
+ * A vector hashes genres, directors and MPA into fixed slots, adds the release year scaled so 50 years
+ * weigh as much as a shared genre, and a hashed signature of the users who liked the film, and is
+ * normalised so distance is 1 - cosine.
+ * A re-saved film gets a new node and its old node is tombstoned; once tombstones pass a quarter of
+ * the nodes the graph is rebuilt in the background and swapped in. The graph is saved to disk and
+ * reconciled with the database on startup, so only films that changed meanwhile are re-inserted.
+ */
+@Slf4j
+@Component
+public class SimilarFilmsIndex implements FilmChangeListener {
+    private static final int MAGIC = 0x53494d31;
+    private static final int GENRE_SLOTS = 8;
+    private static final int DIRECTOR_SLOTS = 16;
+    private static final int MPA_SLOTS = 6;
+    private static final int LIKE_SLOTS = 16;
+    private static final int YEAR_SLOT = GENRE_SLOTS + DIRECTOR_SLOTS + MPA_SLOTS;
+    private static final int LIKE_OFFSET = YEAR_SLOT + 1;
+    private static final int DIMENSIONS = LIKE_OFFSET + LIKE_SLOTS;
+    private static final float DIRECTOR_WEIGHT = 1.5f;
+    private static final float LIKE_WEIGHT = 0.5f;
+    private static final int M = 12;
+    private static final int EF_CONSTRUCTION = 64;
+    private static final int MIN_EF_SEARCH = 32;
+    private static final double LEVEL_FACTOR = 1 / Math.log(M);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Path path;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ExecutorService compactor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "similar-films-compactor");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private Graph graph = new Graph();
+    private List<Change> compactionLog;
+    private int compactions;
+
+    public SimilarFilmsIndex(JdbcTemplate jdbcTemplate, @Value("${filmorate.similar.path}") Path path) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.path = path;
+    }
+
+    @PostConstruct
+    public void init() {
+        Map<Long, float[]> features = loadFeatures();
+        lock.writeLock().lock();
+        try {
+            Graph restored = restore();
+            if (restored == null) {
+                log.info("Building similar films index from scratch");
+                restored = new Graph();
+            }
+            graph = restored;
+            int inserted = 0;
+            for (Map.Entry<Long, float[]> entry : features.entrySet()) {
+                Integer node = graph.nodeOfFilm.get(entry.getKey());
+                if (node == null || !Arrays.equals(graph.nodes.get(node).vector, entry.getValue())) {
+                    graph.put(entry.getKey(), entry.getValue());
+                    inserted++;
+                }
+            }
+            for (Long filmId : new ArrayList<>(graph.nodeOfFilm.keySet())) {
+                if (!features.containsKey(filmId)) {
+                    graph.remove(filmId);
+                }
+            }
+            compactIfNeeded();
+            log.info("Similar films index ready for {} films, {} inserted on startup",
+                    graph.nodeOfFilm.size(), inserted);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        compactor.shutdown();
+        compactor.awaitTermination(30, TimeUnit.SECONDS);
+        save();
+    }
+
+    /**
+     * Serialises the graph into memory under the read lock and writes the file after releasing it.
+     */
+    @Scheduled(fixedDelayString = "${filmorate.similar.save-interval}",
+            initialDelayString = "${filmorate.similar.save-interval}")
+    public void save() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        lock.readLock().lock();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            graph.write(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.readLock().unlock();
+        }
+        try {
+            Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            Files.write(tmp, bytes.toByteArray());
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.info("Similar films index saved to {}", path);
+        } catch (IOException e) {
+            log.warn("Could not save similar films index to {}", path, e);
+        }
+    }
+
+    /**
+     * Up to {@code limit} films nearest to the given one, nearest first; empty for a film not in the index.
+     */
+    public List<Long> getSimilar(Long filmId, int limit) {
+        lock.readLock().lock();
+        try {
+            return graph.nearest(filmId, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Waits until no compaction is running or queued; returns at once when the compactor is stopped.
+     */
+    public void awaitCompaction() throws InterruptedException {
+        while (getStats().compacting()) {
+            try {
+                compactor.submit(() -> {
+                }).get();
+            } catch (RejectedExecutionException e) {
+                return;
+            } catch (ExecutionException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    public Stats getStats() {
+        lock.readLock().lock();
+        try {
+            return new Stats(graph.nodes.size(), graph.nodeOfFilm.size(), graph.tombstones, compactionLog != null,
+                    compactions);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void onFilmSaved(Film film) {
+        float[] vector = new float[DIMENSIONS];
+        if (film.getGenres() != null) {
+            for (Genre genre : film.getGenres()) {
+                addGenre(vector, genre.getId());
+            }
+        }
+        if (film.getDirectors() != null) {
+            for (Director director : film.getDirectors()) {
+                addDirector(vector, director.getId());
+            }
+        }
+        if (film.getMpa() != null) {
+            addMpa(vector, film.getMpa().getId());
+        }
+        if (film.getReleaseDate() != null) {
+            setYear(vector, film.getReleaseDate().getYear());
+        }
+        jdbcTemplate.query("SELECT user_id FROM likes WHERE film_id = ?",
+                rs -> {
+                    addLike(vector, rs.getLong("user_id"));
+                }, film.getId());
+        normalize(vector);
+        apply(new Change(film.getId(), vector));
+    }
+
+    @Override
+    public void onFilmDeleted(Long filmId) {
+        apply(new Change(filmId, null));
+    }
+
+    private void apply(Change change) {
+        lock.writeLock().lock();
+        try {
+            change.applyTo(graph);
+            if (compactionLog != null) {
+                compactionLog.add(change);
+            }
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Must be called under the write lock. Once tombstones pass a quarter of the nodes, the live nodes are
+     * rebuilt into a new graph on the compactor thread while changes keep going to the current graph and
+     * a log; the log is then replayed onto the new graph and the two are swapped under the write lock.
+     */
+    private void compactIfNeeded() {
+        if (compactionLog != null || graph.tombstones * 4 <= graph.nodes.size()) {
+            return;
+        }
+        log.info("Compacting similar films index: {} of {} nodes are tombstones",
+                graph.tombstones, graph.nodes.size());
+        List<Change> live = graph.nodes.stream()
+                .filter(node -> !node.deleted)
+                .map(node -> new Change(node.filmId, node.vector))
+                .toList();
+        List<Change> changes = new ArrayList<>();
+        compactionLog = changes;
+        try {
+            compactor.execute(() -> compact(live, changes));
+        } catch (RejectedExecutionException e) {
+            compactionLog = null;
+            log.info("Similar films compactor is stopped, skipping compaction");
+        }
+    }
+
+    private void compact(List<Change> live, List<Change> changes) {
+        long started = System.currentTimeMillis();
+        Graph compacted = new Graph();
+        try {
+            live.forEach(change -> change.applyTo(compacted));
+        } catch (RuntimeException e) {
+            log.error("Could not compact similar films index", e);
+            lock.writeLock().lock();
+            try {
+                compactionLog = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            changes.forEach(change -> change.applyTo(compacted));
+            graph = compacted;
+            compactionLog = null;
+            compactions++;
+            log.info("Similar films index compacted to {} nodes in {} ms, {} changes replayed",
+                    compacted.nodes.size(), System.currentTimeMillis() - started, changes.size());
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private Map<Long, float[]> loadFeatures() {
+        Map<Long, float[]> features = new HashMap<>();
+        jdbcTemplate.query("SELECT film_id, mpa_id, YEAR(film_releaseDate) AS release_year FROM films", rs -> {
+            float[] vector = new float[DIMENSIONS];
+            addMpa(vector, rs.getInt("mpa_id"));
+            int year = rs.getInt("release_year");
+            if (!rs.wasNull()) {
+                setYear(vector, year);
+            }
+            features.put(rs.getLong("film_id"), vector);
+        });
+        jdbcTemplate.query("SELECT film_id, genre_id FROM film_genres", rs -> {
+            float[] vector = features.get(rs.getLong("film_id"));
+            if (vector != null) {
+                addGenre(vector, rs.getInt("genre_id"));
+            }
+        });
+        jdbcTemplate.query("SELECT film_id, director_id FROM film_directors", rs -> {
+            float[] vector = features.get(rs.getLong("film_id"));
+            if (vector != null) {
+                addDirector(vector, rs.getLong("director_id"));
+            }
+        });
+        jdbcTemplate.query("SELECT film_id, user_id FROM likes", rs -> {
+            float[] vector = features.get(rs.getLong("film_id"));
+            if (vector != null) {
+                addLike(vector, rs.getLong("user_id"));
+            }
+        });
+        features.values().forEach(SimilarFilmsIndex::normalize);
+        return features;
+    }
+
+    private static void addGenre(float[] vector, int genreId) {
+        vector[Math.floorMod(genreId, GENRE_SLOTS)] += 1;
+    }
+
+    private static void addDirector(float[] vector, long directorId) {
+        vector[GENRE_SLOTS + Math.floorMod(Long.hashCode(directorId * 0x9E3779B97F4A7C15L), DIRECTOR_SLOTS)]
+                += DIRECTOR_WEIGHT;
+    }
+
+    private static void addMpa(float[] vector, int mpaId) {
+        vector[GENRE_SLOTS + DIRECTOR_SLOTS + Math.floorMod(mpaId, MPA_SLOTS)] += 1;
+    }
+
+    private static void setYear(float[] vector, int year) {
+        vector[YEAR_SLOT] = (year - 1900) / 50f;
+    }
+
+    private static void addLike(float[] vector, long userId) {
+        vector[LIKE_OFFSET + Math.floorMod(Long.hashCode(userId * 0xC2B2AE3D27D4EB4FL), LIKE_SLOTS)] += LIKE_WEIGHT;
+    }
+
+    private static void normalize(float[] vector) {
+        double norm = 0;
+        for (float value : vector) {
+            norm += value * value;
+        }
+        if (norm > 0) {
+            float scale = (float) (1 / Math.sqrt(norm));
+            for (int i = 0; i < vector.length; i++) {
+                vector[i] *= scale;
+            }
+        }
+    }
+
+    private static float distance(float[] a, float[] b) {
+        float dot = 0;
+        for (int i = 0; i < a.length; i++) {
+            dot += a[i] * b[i];
+        }
+        return 1 - dot;
+    }
+
+    private Graph restore() {
+        if (!Files.exists(path)) {
+            return null;
+        }
+        Graph restored = new Graph();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != MAGIC || in.readInt() != DIMENSIONS) {
+                log.warn("Ignoring incompatible similar films index at {}", path);
+                return null;
+            }
+            int count = in.readInt();
+            restored.entryPoint = in.readInt();
+            restored.maxLevel = in.readInt();
+            for (int id = 0; id < count; id++) {
+                long filmId = in.readLong();
+                boolean deleted = in.readBoolean();
+                float[] vector = new float[DIMENSIONS];
+                for (int i = 0; i < DIMENSIONS; i++) {
+                    vector[i] = in.readFloat();
+                }
+                Node node = new Node(filmId, vector, in.readInt() - 1);
+                node.deleted = deleted;
+                for (int level = 0; level < node.links.length; level++) {
+                    int links = in.readInt();
+                    node.links[level] = new int[links];
+                    node.linkCounts[level] = links;
+                    for (int i = 0; i < links; i++) {
+                        node.links[level][i] = in.readInt();
+                    }
+                }
+                restored.nodes.add(node);
+                if (deleted) {
+                    restored.tombstones++;
+                } else {
+                    restored.nodeOfFilm.put(filmId, id);
+                }
+            }
+            log.info("Similar films index restored from {} with {} nodes", path, count);
+            return restored;
+        } catch (IOException e) {
+            log.warn("Could not restore similar films index from {}", path, e);
+            return null;
+        }
+    }
+
+    public record Stats(int nodes, int films, int tombstones, boolean compacting, int compactions) {
+    }
+
+    private record Candidate(int node, float distance) {
+    }
+
+    /**
+     * A film put with its vector, or removed when the vector is {@code null}.
+     */
+    private record Change(long filmId, float[] vector) {
+        private void applyTo(Graph graph) {
+            if (vector == null) {
+                graph.remove(filmId);
+            } else {
+                graph.put(filmId, vector);
+            }
+        }
+    }
+
+    /**
+     * The HNSW layers themselves; not thread-safe, guarded by the index lock once published.
+     */
+    private static final class Graph {
+        private final Random random = new Random(42);
+        private final List<Node> nodes = new ArrayList<>();
+        private final Map<Long, Integer> nodeOfFilm = new HashMap<>();
+        private int entryPoint = -1;
+        private int maxLevel = -1;
+        private int tombstones;
+
+        private List<Long> nearest(Long filmId, int limit) {
+            Integer node = nodeOfFilm.get(filmId);
+            if (node == null) {
+                return List.of();
+            }
+            float[] query = nodes.get(node).vector;
+            int current = entryPoint;
+            for (int level = maxLevel; level > 0; level--) {
+                current = greedy(query, current, level);
+            }
+            PriorityQueue<Candidate> found = searchLayer(query, current, Math.max(limit + 1, MIN_EF_SEARCH), 0);
+            List<Candidate> nearest = new ArrayList<>(found);
+            nearest.sort(Comparator.comparingDouble(Candidate::distance));
+            List<Long> ids = new ArrayList<>(limit);
+            for (Candidate candidate : nearest) {
+                Node other = nodes.get(candidate.node());
+                if (!other.deleted && other.filmId != filmId) {
+                    ids.add(other.filmId);
+                    if (ids.size() == limit) {
+                        break;
+                    }
+                }
+            }
+            return ids;
+        }
+
+        private void put(Long filmId, float[] vector) {
+            remove(filmId);
+            int level = (int) (-Math.log(1 - random.nextDouble()) * LEVEL_FACTOR);
+            int id = nodes.size();
+            nodes.add(new Node(filmId, vector, level));
+            nodeOfFilm.put(filmId, id);
+            if (entryPoint < 0) {
+                entryPoint = id;
+                maxLevel = level;
+                return;
+            }
+            int current = entryPoint;
+            for (int l = maxLevel; l > level; l--) {
+                current = greedy(vector, current, l);
+            }
+            for (int l = Math.min(level, maxLevel); l >= 0; l--) {
+                PriorityQueue<Candidate> found = searchLayer(vector, current, EF_CONSTRUCTION, l);
+                List<Candidate> nearest = new ArrayList<>(found);
+                nearest.sort(Comparator.comparingDouble(Candidate::distance));
+                for (int i = 0; i < Math.min(M, nearest.size()); i++) {
+                    int neighbour = nearest.get(i).node();
+                    link(id, neighbour, l);
+                    link(neighbour, id, l);
+                }
+                current = nearest.getFirst().node();
+            }
+            if (level > maxLevel) {
+                entryPoint = id;
+                maxLevel = level;
+            }
+        }
+
+        private void remove(Long filmId) {
+            Integer node = nodeOfFilm.remove(filmId);
+            if (node != null) {
+                nodes.get(node).deleted = true;
+                tombstones++;
+            }
+        }
+
+        /**
+         * Adds a directed edge, dropping the farthest neighbour when the node is full.
+         */
+        private void link(int from, int to, int level) {
+            Node node = nodes.get(from);
+            int capacity = level == 0 ? 2 * M : M;
+            int[] links = node.links[level];
+            int count = node.linkCounts[level];
+            if (count < capacity) {
+                if (links.length == count) {
+                    links = Arrays.copyOf(links, Math.min(capacity, Math.max(4, count * 2)));
+                    node.links[level] = links;
+                }
+                links[count] = to;
+                node.linkCounts[level]++;
+                return;
+            }
+            int farthest = -1;
+            float farthestDistance = distance(node.vector, nodes.get(to).vector);
+            for (int i = 0; i < count; i++) {
+                float d = distance(node.vector, nodes.get(links[i]).vector);
+                if (d > farthestDistance) {
+                    farthest = i;
+                    farthestDistance = d;
+                }
+            }
+            if (farthest >= 0) {
+                links[farthest] = to;
+            }
+        }
+
+        private int greedy(float[] query, int start, int level) {
+            int current = start;
+            float currentDistance = distance(query, nodes.get(current).vector);
+            boolean improved = true;
+            while (improved) {
+                improved = false;
+                Node node = nodes.get(current);
+                if (node.links.length <= level) {
+                    break;
+                }
+                for (int i = 0; i < node.linkCounts[level]; i++) {
+                    int neighbour = node.links[level][i];
+                    float d = distance(query, nodes.get(neighbour).vector);
+                    if (d < currentDistance) {
+                        current = neighbour;
+                        currentDistance = d;
+                        improved = true;
+                    }
+                }
+            }
+            return current;
+        }
+
+        /**
+         * Best-first search of one layer; returns up to {@code ef} closest nodes as a farthest-first heap.
+         */
+        private PriorityQueue<Candidate> searchLayer(float[] query, int start, int ef, int level) {
+            BitSet visited = new BitSet(nodes.size());
+            PriorityQueue<Candidate> candidates = new PriorityQueue<>(Comparator.comparingDouble(Candidate::distance));
+            PriorityQueue<Candidate> found = new PriorityQueue<>(
+                    Comparator.comparingDouble(Candidate::distance).reversed());
+            Candidate first = new Candidate(start, distance(query, nodes.get(start).vector));
+            visited.set(start);
+            candidates.add(first);
+            found.add(first);
+            while (!candidates.isEmpty()) {
+                Candidate closest = candidates.poll();
+                if (closest.distance() > found.peek().distance() && found.size() >= ef) {
+                    break;
+                }
+                Node node = nodes.get(closest.node());
+                if (node.links.length <= level) {
+                    continue;
+                }
+                for (int i = 0; i < node.linkCounts[level]; i++) {
+                    int neighbour = node.links[level][i];
+                    if (visited.get(neighbour)) {
+                        continue;
+                    }
+                    visited.set(neighbour);
+                    float d = distance(query, nodes.get(neighbour).vector);
+                    if (found.size() < ef || d < found.peek().distance()) {
+                        Candidate candidate = new Candidate(neighbour, d);
+                        candidates.add(candidate);
+                        found.add(candidate);
+                        if (found.size() > ef) {
+                            found.poll();
+                        }
+                    }
+                }
+            }
+            return found;
+        }
+
+        private void write(DataOutputStream out) throws IOException {
+            out.writeInt(MAGIC);
+            out.writeInt(DIMENSIONS);
+            out.writeInt(nodes.size());
+            out.writeInt(entryPoint);
+            out.writeInt(maxLevel);
+            for (Node node : nodes) {
+                out.writeLong(node.filmId);
+                out.writeBoolean(node.deleted);
+                for (float value : node.vector) {
+                    out.writeFloat(value);
+                }
+                out.writeInt(node.links.length);
+                for (int level = 0; level < node.links.length; level++) {
+                    out.writeInt(node.linkCounts[level]);
+                    for (int i = 0; i < node.linkCounts[level]; i++) {
+                        out.writeInt(node.links[level][i]);
+                    }
+                }
+            }
+        }
+    }
+
+    private static final class Node {
+        private final long filmId;
+        private final float[] vector;
+        private final int[][] links;
+        private final int[] linkCounts;
+        private boolean deleted;
+
+        private Node(long filmId, float[] vector, int level) {
+            this.filmId = filmId;
+            this.vector = vector;
+            this.links = new int[level + 1][];
+            this.linkCounts = new int[level + 1];
+            Arrays.fill(links, new int[0]);
+        }
+    }
+}
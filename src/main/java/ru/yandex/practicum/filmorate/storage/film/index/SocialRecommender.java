@@ -0,0 +1,69 @@
+package ru.yandex.practicum.filmorate.storage.film.index;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.user.index.FriendGraph;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Recommends what a user's friends and friends of friends liked. A like from a direct friend weighs 1;
+ * each path to a second-hop friend adds {@link #SECOND_HOP_WEIGHT} divided by the intermediate friend's fan-out.
+ * Fan-out is capped by random sampling, so users with thousands of friends cost a bounded number of lookups.
+ */
+@Component
+@RequiredArgsConstructor
+public class SocialRecommender {
+    private static final double SECOND_HOP_WEIGHT = 0.5;
+    private static final int MAX_FRIENDS = 200;
+    private static final int MAX_FRIENDS_OF_FRIEND = 50;
+    private static final Comparator<Map.Entry<Long, Double>> WORST_FIRST =
+            Map.Entry.<Long, Double>comparingByValue()
+                    .thenComparing(Map.Entry.<Long, Double>comparingByKey().reversed());
+
+    private final FriendGraph friendGraph;
+    private final ItemSimilarityIndex itemSimilarityIndex;
+
+    public List<Long> recommend(Long userId, int count) {
+        long[] friends = friendGraph.sampleFriends(userId, MAX_FRIENDS);
+        Set<Long> direct = new HashSet<>();
+        Map<Long, Double> weights = new HashMap<>();
+        for (long friendId : friends) {
+            direct.add(friendId);
+            weights.put(friendId, 1.0);
+        }
+        for (long friendId : friends) {
+            long[] friendsOfFriend = friendGraph.sampleFriends(friendId, MAX_FRIENDS_OF_FRIEND);
+            for (long secondHop : friendsOfFriend) {
+                if (secondHop != userId && !direct.contains(secondHop)) {
+                    weights.merge(secondHop, SECOND_HOP_WEIGHT / friendsOfFriend.length, Double::sum);
+                }
+            }
+        }
+        weights.remove(userId);
+
+        Set<Long> liked = itemSimilarityIndex.getLikedFilms(userId);
+        PriorityQueue<Map.Entry<Long, Double>> top = new PriorityQueue<>(WORST_FIRST);
+        for (Map.Entry<Long, Double> entry : itemSimilarityIndex.sumLikes(weights).entrySet()) {
+            if (liked.contains(entry.getKey())) {
+                continue;
+            }
+            top.add(entry);
+            if (top.size() > count) {
+                top.poll();
+            }
+        }
+        List<Long> ids = new ArrayList<>(top.size());
+        while (!top.isEmpty()) {
+            ids.add(top.poll().getKey());
+        }
+        return ids.reversed();
+    }
+}
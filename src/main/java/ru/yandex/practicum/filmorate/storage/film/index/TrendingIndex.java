@@ -0,0 +1,150 @@
+package ru.yandex.practicum.filmorate.storage.film.index;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Per-film hourly like counters for the last week, scored with exponential time decay.
+ * Each ring buffer slot packs the hour it belongs to and its count into one long, so readers always see
+ * a matching hour and count and score without locking.
+ * Writes for one film are serialised by the map's per-film compute, which also covers dropping a film whose
+ * counters all went stale, so a slot is updated with a plain read and write and a like is never counted into
+ * an array that is being dropped.
+ * A removed like is taken off the hour it was made in; one older than the window is ignored.
+ */
+@Slf4j
+@Component
+public class TrendingIndex implements FilmChangeListener {
+    public static final Duration MAX_WINDOW = Duration.ofDays(7);
+    private static final int SLOTS = (int) MAX_WINDOW.toHours();
+    private static final long HOUR_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PopularityIndex popularityIndex;
+    private final double decayPerHour;
+    private final Map<Long, AtomicLongArray> counters = new ConcurrentHashMap<>();
+
+    public TrendingIndex(JdbcTemplate jdbcTemplate,
+                         PopularityIndex popularityIndex,
+                         @Value("${filmorate.trending.half-life}") Duration halfLife) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.popularityIndex = popularityIndex;
+        this.decayPerHour = Math.log(2) / Math.max(1, halfLife.toHours());
+    }
+
+    @PostConstruct
+    public void rebuild() {
+        log.info("Rebuilding trending index");
+        counters.clear();
+        Timestamp since = new Timestamp(System.currentTimeMillis() - MAX_WINDOW.toMillis());
+        jdbcTemplate.query("SELECT film_id, created_at FROM likes WHERE created_at >= ?", rs -> {
+            record(rs.getLong("film_id"), rs.getTimestamp("created_at").getTime() / HOUR_MILLIS, 1);
+        }, since);
+        log.info("Trending index built for {} films", counters.size());
+    }
+
+    public List<Long> getTrending(Duration window, Long genreId, int count) {
+        long currentHour = System.currentTimeMillis() / HOUR_MILLIS;
+        long hours = Math.min(SLOTS, Math.max(1, window.toHours()));
+        PriorityQueue<Scored> top = new PriorityQueue<>(Comparator.comparingDouble(Scored::score)
+                .thenComparing(Comparator.comparingLong(Scored::filmId).reversed()));
+        counters.forEach((filmId, slots) -> {
+            if (genreId != null && !popularityIndex.hasGenre(filmId, genreId)) {
+                return;
+            }
+            double score = score(slots, currentHour, hours);
+            if (score > 0) {
+                top.add(new Scored(filmId, score));
+                if (top.size() > count) {
+                    top.poll();
+                }
+            } else {
+                counters.computeIfPresent(filmId,
+                        (id, current) -> score(current, currentHour, SLOTS) == 0 ? null : current);
+            }
+        });
+        List<Long> ids = new ArrayList<>(top.size());
+        while (!top.isEmpty()) {
+            ids.add(top.poll().filmId());
+        }
+        return ids.reversed();
+    }
+
+    @Override
+    public void onFilmDeleted(Long filmId) {
+        counters.remove(filmId);
+    }
+
+    @Override
+    public void onLikeAdded(Long filmId, Long userId) {
+        record(filmId, System.currentTimeMillis() / HOUR_MILLIS, 1);
+    }
+
+    @Override
+    public void onLikeRemoved(Long filmId, Long userId, Instant likedAt) {
+        record(filmId, likedAt.toEpochMilli() / HOUR_MILLIS, -1);
+    }
+
+    private void record(long filmId, long hour, int delta) {
+        if (delta < 0) {
+            counters.computeIfPresent(filmId, (id, slots) -> {
+                count(slots, hour, delta);
+                return slots;
+            });
+        } else {
+            counters.compute(filmId, (id, slots) -> {
+                AtomicLongArray counted = slots == null ? new AtomicLongArray(SLOTS) : slots;
+                count(counted, hour, delta);
+                return counted;
+            });
+        }
+    }
+
+    /**
+     * Called only inside a compute for the film, so no other writer touches the slots meanwhile.
+     */
+    private static void count(AtomicLongArray slots, long hour, int delta) {
+        int slot = (int) (hour % SLOTS);
+        long packed = slots.get(slot);
+        long slotHour = packed >>> 32;
+        if (slotHour == hour) {
+            slots.set(slot, pack(hour, Math.max(0, (packed & 0xFFFFFFFFL) + delta)));
+        } else if (slotHour < hour && delta > 0) {
+            slots.set(slot, pack(hour, delta));
+        }
+    }
+
+    private double score(AtomicLongArray slots, long currentHour, long hours) {
+        double score = 0;
+        for (int i = 0; i < SLOTS; i++) {
+            long packed = slots.get(i);
+            long age = currentHour - (packed >>> 32);
+            if (age >= 0 && age < hours) {
+                score += (packed & 0xFFFFFFFFL) * Math.exp(-decayPerHour * age);
+            }
+        }
+        return score;
+    }
+
+    private static long pack(long hour, long count) {
+        return (hour << 32) | count;
+    }
+
+    private record Scored(long filmId, double score) {
+    }
+}
@@ -0,0 +1,293 @@
+package ru.yandex.practicum.filmorate.storage.film.index;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Bitmap of liked film ids per user. A user's bitmap is loaded on first use together with the
+ * existence check, then kept current by like changes, so common films are a bitmap intersection.
+ * At most a fixed number of users are kept, evicted least recently used; only single-user reads count as a use.
+ * Bulk reads for many friends load the missing bitmaps in one query and do not keep them, so one user with
+ * many friends cannot flush everyone else out.
+ * The database is read outside any lock: the first caller claims the user's slot and loads it while others
+ * wait on that slot alone, and like changes arriving during the load are queued and replayed over its result.
+ * Setting or clearing a bit is idempotent, so a replayed change the load already saw does no harm.
+ * Bitmaps are copied on write, so readers intersect them without holding a lock.
+ * A film id is its bit index, so film ids must fit in an int; a larger id fails the load of a user who liked it
+ * with an {@link IllegalArgumentException} instead of landing on another film's bit.
+ */
+@Slf4j
+@Component
+public class UserLikesIndex implements FilmChangeListener {
+    private static final int BATCH_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PopularityIndex popularityIndex;
+    private final Map<Long, Slot> likes;
+
+    public UserLikesIndex(JdbcTemplate jdbcTemplate,
+                          PopularityIndex popularityIndex,
+                          @Value("${filmorate.likes.index.max-users}") int maxUsers) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.popularityIndex = popularityIndex;
+        this.likes = new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Slot> eldest) {
+                return size() > maxUsers;
+            }
+        };
+    }
+
+    /**
+     * Films liked by both users, most liked first.
+     */
+    public List<Long> getCommon(Long userId, Long friendId) {
+        List<Long> ids = new ArrayList<>();
+        BitSet common = (BitSet) liked(userId).clone();
+        common.and(liked(friendId));
+        common.stream().forEach(id -> ids.add((long) id));
+        ids.sort(Comparator.comparingLong(popularityIndex::getLikes).reversed().thenComparingLong(id -> id));
+        return ids;
+    }
+
+    /**
+     * Number of films each friend has in common with the user, in the order of the given friend ids.
+     * Friends whose bitmap is not loaded are read in batched queries and not kept.
+     */
+    public Map<Long, Integer> getCommonCounts(Long userId, List<Long> friendIds) {
+        BitSet own = liked(userId);
+        Map<Long, BitSet> bitmaps = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        for (Long friendId : friendIds) {
+            BitSet bitmap = loaded(friendId);
+            if (bitmap == null) {
+                missing.add(friendId);
+            } else {
+                bitmaps.put(friendId, bitmap);
+            }
+        }
+        for (int from = 0; from < missing.size(); from += BATCH_SIZE) {
+            bitmaps.putAll(load(missing.subList(from, Math.min(from + BATCH_SIZE, missing.size()))));
+        }
+        Map<Long, Integer> counts = new LinkedHashMap<>();
+        for (Long friendId : friendIds) {
+            counts.put(friendId, commonCount(own, bitmaps.get(friendId)));
+        }
+        return counts;
+    }
+
+    /**
+     * Like {@link #getCommonCounts} but never touches the database: friends whose bitmap is not loaded yet
+     * are left out, and the result is empty if the user's own bitmap is not loaded.
+     */
+    public Map<Long, Integer> getLoadedCommonCounts(Long userId, List<Long> friendIds) {
+        Map<Long, Integer> counts = new LinkedHashMap<>();
+        BitSet own = loaded(userId);
+        if (own == null) {
+            return counts;
+        }
+        for (Long friendId : friendIds) {
+            BitSet other = loaded(friendId);
+            if (other != null) {
+                counts.put(friendId, commonCount(own, other));
+            }
+        }
+        return counts;
+    }
+
+    public void evict(Long userId) {
+        synchronized (likes) {
+            likes.remove(userId);
+        }
+    }
+
+    @Override
+    public void onFilmDeleted(Long filmId) {
+        if (!fitsBitmap(filmId)) {
+            return;
+        }
+        int bit = filmId.intValue();
+        List<Slot> slots;
+        synchronized (likes) {
+            slots = new ArrayList<>(likes.values());
+        }
+        slots.forEach(slot -> slot.change(bit, false));
+    }
+
+    @Override
+    public void onLikeAdded(Long filmId, Long userId) {
+        if (!fitsBitmap(filmId)) {
+            evict(userId);
+            return;
+        }
+        Slot slot = slot(userId);
+        if (slot != null) {
+            slot.change(filmId.intValue(), true);
+        }
+    }
+
+    @Override
+    public void onLikeRemoved(Long filmId, Long userId) {
+        Slot slot = slot(userId);
+        if (slot != null && fitsBitmap(filmId)) {
+            slot.change(filmId.intValue(), false);
+        }
+    }
+
+    private static boolean fitsBitmap(long filmId) {
+        return filmId >= 0 && filmId <= Integer.MAX_VALUE;
+    }
+
+    private static int bit(long filmId) {
+        if (!fitsBitmap(filmId)) {
+            log.error("Film id {} does not fit the likes bitmap", filmId);
+            throw new IllegalArgumentException("Film id = " + filmId + " exceeds " + Integer.MAX_VALUE);
+        }
+        return (int) filmId;
+    }
+
+    private static int commonCount(BitSet own, BitSet other) {
+        BitSet common = (BitSet) own.clone();
+        common.and(other);
+        return common.cardinality();
+    }
+
+    private Slot slot(Long userId) {
+        synchronized (likes) {
+            return likes.get(userId);
+        }
+    }
+
+    private BitSet loaded(Long userId) {
+        Slot slot = slot(userId);
+        return slot == null ? null : slot.bitmap();
+    }
+
+    private BitSet liked(Long userId) {
+        Slot slot;
+        boolean claimed = false;
+        synchronized (likes) {
+            slot = likes.remove(userId);
+            if (slot == null) {
+                slot = new Slot();
+                claimed = true;
+            }
+            likes.put(userId, slot);
+        }
+        if (claimed) {
+            try {
+                slot.publish(load(userId));
+            } catch (RuntimeException e) {
+                synchronized (likes) {
+                    likes.remove(userId, slot);
+                }
+                slot.loaded.completeExceptionally(e);
+                throw e;
+            }
+        }
+        try {
+            slot.loaded.join();
+            return slot.bitmap();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    private BitSet load(Long userId) {
+        log.info("Loading liked films of user with id: {}", userId);
+        final String sqlQuery = """
+                SELECT u.user_id, l.film_id
+                FROM users u
+                LEFT JOIN likes l ON l.user_id = u.user_id
+                WHERE u.user_id = ?
+                """;
+        BitSet bitmap = new BitSet();
+        boolean[] found = {false};
+        jdbcTemplate.query(sqlQuery, rs -> {
+            found[0] = true;
+            long filmId = rs.getLong("film_id");
+            if (!rs.wasNull()) {
+                bitmap.set(bit(filmId));
+            }
+        }, userId);
+        if (!found[0]) {
+            log.error("User with id {} not found", userId);
+            throw new NotFoundException("User id = " + userId + " not found");
+        }
+        return bitmap;
+    }
+
+    private Map<Long, BitSet> load(List<Long> userIds) {
+        log.info("Loading liked films of {} users", userIds.size());
+        final String sqlQuery = """
+                SELECT u.user_id, l.film_id
+                FROM users u
+                LEFT JOIN likes l ON l.user_id = u.user_id
+                WHERE u.user_id IN (%s)
+                """.formatted(String.join(",", Collections.nCopies(userIds.size(), "?")));
+        Map<Long, BitSet> bitmaps = new HashMap<>();
+        jdbcTemplate.query(sqlQuery, rs -> {
+            BitSet bitmap = bitmaps.computeIfAbsent(rs.getLong("user_id"), id -> new BitSet());
+            long filmId = rs.getLong("film_id");
+            if (!rs.wasNull()) {
+                bitmap.set(bit(filmId));
+            }
+        }, userIds.toArray());
+        for (Long userId : userIds) {
+            if (!bitmaps.containsKey(userId)) {
+                log.error("User with id {} not found", userId);
+                throw new NotFoundException("User id = " + userId + " not found");
+            }
+        }
+        return bitmaps;
+    }
+
+    /**
+     * One user's bitmap, or the changes queued for it while it is being loaded.
+     */
+    private static final class Slot {
+        private final CompletableFuture<Void> loaded = new CompletableFuture<>();
+        private BitSet bitmap;
+        private List<Change> changes = new ArrayList<>();
+
+        private synchronized BitSet bitmap() {
+            return bitmap;
+        }
+
+        private synchronized void change(int filmId, boolean liked) {
+            if (bitmap == null) {
+                changes.add(new Change(filmId, liked));
+                return;
+            }
+            BitSet copy = (BitSet) bitmap.clone();
+            copy.set(filmId, liked);
+            bitmap = copy;
+        }
+
+        private void publish(BitSet bitmap) {
+            synchronized (this) {
+                changes.forEach(change -> bitmap.set(change.filmId(), change.liked()));
+                changes = null;
+                this.bitmap = bitmap;
+            }
+            loaded.complete(null);
+        }
+    }
+
+    private record Change(int filmId, boolean liked) {
+    }
+}
@@ -18,6 +18,8 @@ public interface ReviewStorage {
 
     List<Review> getReviewsByFilm(Long filmId, Integer count);
 
+    List<Review> getReviewsByIds(List<Long> ids);
+
     void addLike(Long reviewId, Long userId);
 
     void addDislike(Long reviewId, Long userId);
@@ -12,9 +12,13 @@ import ru.yandex.practicum.filmorate.mapper.review.ReviewUsefulMapper;
 import ru.yandex.practicum.filmorate.model.Review;
 
 import java.sql.PreparedStatement;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Slf4j
 @RequiredArgsConstructor
@@ -125,6 +129,21 @@ public class ReviewStorageDb implements ReviewStorage {
         return reviews;
     }
 
+    @Override
+    public List<Review> getReviewsByIds(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        String sqlQuery = "SELECT * FROM reviews WHERE review_id IN (%s)"
+                .formatted(String.join(",", Collections.nCopies(ids.size(), "?")));
+        Map<Long, Review> reviews = jdbcTemplate.query(sqlQuery, ReviewMapper::makeReview, ids.toArray()).stream()
+                .collect(Collectors.toMap(Review::getReviewId, Function.identity()));
+        return ids.stream()
+                .map(reviews::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
     @Override
     public void addLike(Long reviewId, Long userId) {
         addReactionToReview(reviewId, userId, Boolean.TRUE);
@@ -0,0 +1,185 @@
+package ru.yandex.practicum.filmorate.storage.review.index;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.mapper.review.ReviewMapper;
+import ru.yandex.practicum.filmorate.model.Review;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+import static ru.yandex.practicum.filmorate.util.TextUtil.fold;
+
+/**
+ * Inverted index over review content scored with BM25 and nudged by the review's useful rating.
+ * Writers only enqueue the review id; a single indexing thread re-reads the row and applies it,
+ * so the write path never waits on the index and updates for one review are applied in order.
+ */
+@Slf4j
+@Component
+public class ReviewSearchIndex {
+    private static final Pattern SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final double USEFUL_WEIGHT = 0.3;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ExecutorService indexer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "review-indexer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Document> documents = new HashMap<>();
+    private final Map<String, Map<Long, Integer>> postings = new HashMap<>();
+    private long totalLength;
+
+    public ReviewSearchIndex(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void rebuild() {
+        log.info("Rebuilding review search index");
+        List<Review> reviews = jdbcTemplate.query("SELECT * FROM reviews", ReviewMapper::makeReview);
+        lock.writeLock().lock();
+        try {
+            documents.clear();
+            postings.clear();
+            totalLength = 0;
+            reviews.forEach(this::put);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Review search index built for {} reviews", reviews.size());
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        indexer.shutdown();
+        indexer.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Schedules the review to be re-read and re-indexed; a review that no longer exists is dropped.
+     */
+    public void refresh(Long reviewId) {
+        indexer.execute(() -> {
+            try {
+                List<Review> reviews = jdbcTemplate.query("SELECT * FROM reviews WHERE review_id = ?",
+                        ReviewMapper::makeReview, reviewId);
+                lock.writeLock().lock();
+                try {
+                    drop(reviewId);
+                    reviews.forEach(this::put);
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            } catch (RuntimeException e) {
+                log.error("Failed to index review {}", reviewId, e);
+            }
+        });
+    }
+
+    public List<Long> search(String query, Long filmId, int limit) {
+        Set<String> terms = new LinkedHashSet<>(tokenize(query));
+        if (terms.isEmpty()) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            if (documents.isEmpty()) {
+                return List.of();
+            }
+            double avgLength = (double) totalLength / documents.size();
+            Map<Long, Double> scores = new HashMap<>();
+            for (String term : terms) {
+                Map<Long, Integer> posting = postings.get(term);
+                if (posting == null) {
+                    continue;
+                }
+                double idf = Math.log(1 + (documents.size() - posting.size() + 0.5) / (posting.size() + 0.5));
+                posting.forEach((reviewId, tf) -> {
+                    Document document = documents.get(reviewId);
+                    if (filmId != null && document.filmId() != filmId) {
+                        return;
+                    }
+                    double norm = tf + K1 * (1 - B + B * document.length() / avgLength);
+                    scores.merge(reviewId, idf * tf * (K1 + 1) / norm, Double::sum);
+                });
+            }
+            PriorityQueue<Scored> top = new PriorityQueue<>(Comparator.comparingDouble(Scored::score)
+                    .thenComparing(Comparator.comparingLong(Scored::reviewId).reversed()));
+            scores.forEach((reviewId, score) -> {
+                long useful = documents.get(reviewId).useful();
+                top.add(new Scored(reviewId, score + USEFUL_WEIGHT * Math.signum(useful) * Math.log1p(Math.abs(useful))));
+                if (top.size() > limit) {
+                    top.poll();
+                }
+            });
+            List<Long> ids = new ArrayList<>(top.size());
+            while (!top.isEmpty()) {
+                ids.add(top.poll().reviewId());
+            }
+            return ids.reversed();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void put(Review review) {
+        List<String> tokens = tokenize(review.getContent());
+        Map<String, Integer> frequencies = new HashMap<>();
+        tokens.forEach(token -> frequencies.merge(token, 1, Integer::sum));
+        frequencies.forEach((term, tf) -> postings.computeIfAbsent(term, t -> new HashMap<>()).put(review.getReviewId(), tf));
+        documents.put(review.getReviewId(), new Document(review.getFilmId(), tokens.size(),
+                review.getUseful() == null ? 0 : review.getUseful(), frequencies.keySet()));
+        totalLength += tokens.size();
+    }
+
+    private void drop(Long reviewId) {
+        Document document = documents.remove(reviewId);
+        if (document == null) {
+            return;
+        }
+        totalLength -= document.length();
+        for (String term : document.terms()) {
+            Map<Long, Integer> posting = postings.get(term);
+            posting.remove(reviewId);
+            if (posting.isEmpty()) {
+                postings.remove(term);
+            }
+        }
+    }
+
+    private static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        for (String token : SEPARATOR.split(fold(text))) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    private record Document(long filmId, int length, long useful, Set<String> terms) {
+    }
+
+    private record Scored(long reviewId, double score) {
+    }
+}
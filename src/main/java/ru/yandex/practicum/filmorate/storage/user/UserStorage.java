@@ -1,7 +1,6 @@
 package ru.yandex.practicum.filmorate.storage.user;
 
 import org.springframework.stereotype.Repository;
-import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.User;
 
 import java.util.List;
@@ -12,6 +11,8 @@ public interface UserStorage {
 
     List<User> findAll();
 
+    List<User> getUsersByIds(List<Long> ids);
+
     User create(User user);
 
     void delete(Long id);
@@ -22,9 +23,7 @@ public interface UserStorage {
 
     User update(User user);
 
-    List<User> getUserFriends(Long id);
-
-    List<User> getSameFriends(Long id, Long otherId);
+    List<User> getTopInfluencers(int count);
 
-    List<Film> getRecommendations(Long userId);
+    void saveInfluence(long[] userIds, double[] scores);
 }
\ No newline at end of file
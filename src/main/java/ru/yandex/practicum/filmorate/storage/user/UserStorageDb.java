@@ -3,20 +3,26 @@ package ru.yandex.practicum.filmorate.storage.user;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
-import ru.yandex.practicum.filmorate.mapper.FilmMapper;
 import ru.yandex.practicum.filmorate.mapper.UserMapper;
-import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.FilmCache;
 
 import java.sql.Date;
 import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
 @Slf4j
@@ -24,8 +30,10 @@ import java.util.Objects;
 @Component
 @Getter
 public class UserStorageDb implements UserStorage {
+    private static final int INFLUENCE_BATCH_SIZE = 1000;
+
     private final JdbcTemplate jdbcTemplate;
-    private final FilmMapper filmMapper;
+    private final FilmCache filmCache;
 
     @Override
     public User create(User user) {
@@ -52,19 +60,27 @@ public class UserStorageDb implements UserStorage {
             return stmt;
         }, keyHolder);
         user.setId(Objects.requireNonNull(keyHolder.getKey()).longValue());
+        user.setInfluence(0.0);
         log.info("User created with id: {}", user.getId());
         return user;
     }
 
     @Override
+    @Transactional
     public void delete(Long id) {
         log.info("Removing user with id: {}", id);
+        final String likeCountQuery = """
+                UPDATE films SET like_count = like_count - 1
+                WHERE film_id IN (SELECT film_id FROM likes WHERE user_id = ?)
+                """;
+        jdbcTemplate.update(likeCountQuery, id);
         String sqlQuery = "delete from users WHERE user_id = ?";
         int rowsAffected = jdbcTemplate.update(sqlQuery, id);
         if (rowsAffected == 0) {
             log.error("User with id {} not found for removal", id);
             throw new NotFoundException("User id = " + id + " not found for removal");
         }
+        filmCache.invalidateAll();
         log.info("User with id {} removed successfully", id);
     }
 
@@ -99,6 +115,18 @@ public class UserStorageDb implements UserStorage {
         return jdbcTemplate.query("SELECT * FROM users", UserMapper::makeUser);
     }
 
+    @Override
+    public List<User> getUsersByIds(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        String in = String.join(",", Collections.nCopies(ids.size(), "?"));
+        Map<Long, User> users = new HashMap<>();
+        jdbcTemplate.query("SELECT * FROM users WHERE user_id IN (%s)".formatted(in), UserMapper::makeUser, ids.toArray())
+                .forEach(user -> users.put(user.getId(), user));
+        return ids.stream().map(users::get).filter(Objects::nonNull).toList();
+    }
+
     @Override
     public User getUserById(Long id) {
         log.info("Fetching user with id: {}", id);
@@ -112,128 +140,73 @@ public class UserStorageDb implements UserStorage {
         return users.getFirst();
     }
 
+    /**
+     * One MERGE runs the friendship state machine: a new request is stored as unconfirmed, and repeating it
+     * confirms it. A missing user surfaces as a foreign-key violation, so existence is only checked to word
+     * the error.
+     */
     @Override
     public void addFriend(Long id, Long friendId) {
         log.info("Adding friend with id {} for user with id {}", friendId, id);
-        getUserById(id);
-        getUserById(friendId);
-        final String querySelect = """
-                SELECT status FROM friendship
-                WHERE (accepting_user_id = ? AND requesting_user_id = ?)
-                """;
-
-        final String queryInsert = """
-                INSERT INTO friendship (accepting_user_id, requesting_user_id, status)
-                VALUES (?,?,?)
-                """;
-
-        final String queryUpdate = """
-                UPDATE friendship
-                SET status = 'confirmed'
-                WHERE accepting_user_id = ? AND requesting_user_id = ?
+        final String sqlQuery = """
+                MERGE INTO friendship f
+                USING (SELECT CAST(? AS BIGINT) AS accepting_user_id, CAST(? AS BIGINT) AS requesting_user_id) s
+                ON f.accepting_user_id = s.accepting_user_id AND f.requesting_user_id = s.requesting_user_id
+                WHEN MATCHED THEN UPDATE SET status = 'confirmed'
+                WHEN NOT MATCHED THEN INSERT (accepting_user_id, requesting_user_id, status)
+                VALUES (s.accepting_user_id, s.requesting_user_id, 'unconfirmed')
                 """;
-
-        List<String> existingStatus = jdbcTemplate.queryForList(querySelect, String.class, id, friendId);
-
-        if (existingStatus.isEmpty()) {
-            jdbcTemplate.update(connection -> {
-                PreparedStatement stmt = connection.prepareStatement(queryInsert);
-                stmt.setLong(1, id);
-                stmt.setLong(2, friendId);
-                stmt.setString(3, "unconfirmed");
-                return stmt;
-            });
-            log.info("Friend request from user with id {} to user with id {} created", id, friendId);
-        } else if (existingStatus.getFirst().equals("unconfirmed")) {
-            jdbcTemplate.update(connection -> {
-                PreparedStatement stmt = connection.prepareStatement(queryUpdate);
-                stmt.setLong(1, id);
-                stmt.setLong(2, friendId);
-                return stmt;
-            });
-            log.info("Friend request from user with id {} to user with id {} confirmed", id, friendId);
+        try {
+            jdbcTemplate.update(sqlQuery, id, friendId);
+        } catch (DataIntegrityViolationException e) {
+            getUserById(id);
+            getUserById(friendId);
+            throw e;
         }
+        log.info("Friendship from user with id {} to user with id {} saved", id, friendId);
     }
 
     @Override
     public void removeFriend(Long id, Long friendId) {
         log.info("Removing friend with id {} for user with id {}", friendId, id);
-        getUserById(id);
-        getUserById(friendId);
         final String sqlQuery = """
-                DELETE FROM friendship AS u
+                DELETE FROM friendship
                 WHERE accepting_user_id = ? AND requesting_user_id = ?
                 """;
-        jdbcTemplate.update(sqlQuery, id, friendId);
+        if (jdbcTemplate.update(sqlQuery, id, friendId) == 0) {
+            getUserById(id);
+            getUserById(friendId);
+        }
         log.info("Friend with id {} removed for user with id {}", friendId, id);
     }
 
     @Override
-    public List<User> getUserFriends(Long id) {
-        log.info("Fetching friends for user with id {}", id);
-        getUserById(id);
-        final String sqlQuery = """
-                SELECT u.* FROM users AS u
-                JOIN friendship AS f ON u.user_id = f.requesting_user_id
-                WHERE f.accepting_user_id = ?
-                """;
-        List<User> friends = jdbcTemplate.query(sqlQuery, UserMapper::makeUser, id);
-        log.info("Fetched {} friends for user with id {}", friends.size(), id);
-        return friends;
-    }
-
-    @Override
-    public List<User> getSameFriends(Long id, Long otherId) {
-        log.info("Fetching common friends for users with ids {} and {}", id, otherId);
-        getUserById(id);
-        getUserById(otherId);
-        final String query = """
-                SELECT u.* FROM users AS u
-                JOIN friendship f1 ON u.user_id = f1.requesting_user_id AND f1.accepting_user_id = ?
-                JOIN friendship f2 ON u.user_id = f2.requesting_user_id AND f2.accepting_user_id = ?
-                """;
-        List<User> commonFriends = jdbcTemplate.query(query, UserMapper::makeUser, id, otherId);
-        log.info("Fetched {} common friends for users with ids {} and {}", commonFriends.size(), id, otherId);
-        return commonFriends;
+    public List<User> getTopInfluencers(int count) {
+        log.info("Fetching top {} influencers", count);
+        final String sqlQuery = "SELECT * FROM users ORDER BY influence DESC, user_id LIMIT ?";
+        return jdbcTemplate.query(sqlQuery, UserMapper::makeUser, count);
     }
 
     @Override
-    public List<Film> getRecommendations(Long userId) {
-        log.info("Fetching recommendations for user with id {}", userId);
-        String sql = """
-                WITH temp AS (SELECT COUNT(*)   AS count,
-                    l1.user_id AS user1_id,
-                    l2.user_id AS user2_id
-                    FROM likes AS l1
-                    JOIN likes AS l2 ON l1.film_id = l2.film_id
-                    WHERE l1.user_id != l2.user_id
-                    AND l1.user_id = ?
-                    GROUP BY user1_id, user2_id
-                    ORDER BY COUNT(*) DESC
-                    LIMIT 1)
-                SELECT f.*,
-                    m.mpa_id, m.mpa_name,
-                    g.genre_id, g.genre_name,
-                    l.user_id AS like_user_id,
-                    d.director_id, d.director_name
-                FROM films f
-                JOIN mpa m ON f.mpa_id = m.mpa_id
-                LEFT JOIN film_genres fg ON f.film_id = fg.film_id
-                LEFT JOIN genres g ON fg.genre_id = g.genre_id
-                LEFT JOIN likes l ON f.film_id = l.film_id
-                LEFT JOIN film_directors fd ON f.film_id = fd.film_id
-                LEFT JOIN directors d ON fd.director_id = d.director_id
-                WHERE f.film_id IN (SELECT l5.film_id
-                    FROM likes l5
-                    JOIN temp ON l5.USER_ID = temp.user2_id
-                    LEFT JOIN LIKES l4 ON l5.FILM_ID = l4.film_id AND l4.user_id = ?
-                    WHERE l4.user_id IS null
-                    );
-                """;
-        List<Film> result = jdbcTemplate.query(sql, filmMapper, userId, userId);
-        log.info("Fetched {} recommendations for user with id {}", result, userId);
-        return result;
+    @Transactional
+    public void saveInfluence(long[] userIds, double[] scores) {
+        log.info("Saving influence scores of {} users", userIds.length);
+        final String sqlQuery = "UPDATE users SET influence = ? WHERE user_id = ?";
+        for (int from = 0; from < userIds.length; from += INFLUENCE_BATCH_SIZE) {
+            int offset = from;
+            int size = Math.min(INFLUENCE_BATCH_SIZE, userIds.length - from);
+            jdbcTemplate.batchUpdate(sqlQuery, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    ps.setDouble(1, scores[offset + i]);
+                    ps.setLong(2, userIds[offset + i]);
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return size;
+                }
+            });
+        }
     }
-
-
 }
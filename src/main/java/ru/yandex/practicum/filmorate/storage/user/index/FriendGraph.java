@@ -0,0 +1,188 @@
+package ru.yandex.practicum.filmorate.storage.user.index;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Directed friendship graph held in memory, confirmed or not: a user's friends are the users they added,
+ * their followers are the users who added them. Adjacency is a sorted {@code long[]} per user, replaced
+ * copy-on-write inside a per-key compute, so readers never lock and always see a consistent array.
+ * Also tracks which user ids exist, so friend reads need no existence query.
+ * Built at startup and updated by {@code UserService} after every user and friendship write.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FriendGraph {
+    private static final long[] NONE = new long[0];
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Set<Long> users = ConcurrentHashMap.newKeySet();
+    private final Map<Long, long[]> friends = new ConcurrentHashMap<>();
+    private final Map<Long, long[]> followers = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void rebuild() {
+        log.info("Rebuilding friend graph");
+        users.clear();
+        friends.clear();
+        followers.clear();
+        jdbcTemplate.query("SELECT user_id FROM users", rs -> {
+            users.add(rs.getLong("user_id"));
+        });
+        Map<Long, Adjacency> loadedFriends = new HashMap<>();
+        Map<Long, Adjacency> loadedFollowers = new HashMap<>();
+        jdbcTemplate.query("SELECT accepting_user_id, requesting_user_id FROM friendship", rs -> {
+            long userId = rs.getLong("accepting_user_id");
+            long friendId = rs.getLong("requesting_user_id");
+            loadedFriends.computeIfAbsent(userId, id -> new Adjacency()).add(friendId);
+            loadedFollowers.computeIfAbsent(friendId, id -> new Adjacency()).add(userId);
+        });
+        loadedFriends.forEach((userId, adjacency) -> friends.put(userId, adjacency.toSortedArray()));
+        loadedFollowers.forEach((userId, adjacency) -> followers.put(userId, adjacency.toSortedArray()));
+        log.info("Friend graph built for {} users and {} friend lists", users.size(), friends.size());
+    }
+
+    public boolean exists(Long userId) {
+        return users.contains(userId);
+    }
+
+    /**
+     * Sorted ids of the user's friends. The array is shared and must not be modified.
+     */
+    public long[] getFriends(Long userId) {
+        return friends.getOrDefault(userId, NONE);
+    }
+
+    /**
+     * Up to {@code limit} of the user's friends, picked uniformly at random when there are more.
+     * A partial Fisher-Yates shuffle runs over a copy, since the adjacency arrays are shared.
+     */
+    public long[] sampleFriends(Long userId, int limit) {
+        long[] ids = getFriends(userId);
+        if (ids.length <= limit) {
+            return ids;
+        }
+        long[] copy = ids.clone();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < limit; i++) {
+            int j = random.nextInt(i, copy.length);
+            long swapped = copy[i];
+            copy[i] = copy[j];
+            copy[j] = swapped;
+        }
+        return Arrays.copyOf(copy, limit);
+    }
+
+    public boolean isFriend(Long userId, long friendId) {
+        return Arrays.binarySearch(getFriends(userId), friendId) >= 0;
+    }
+
+    public long[] getCommonFriends(Long userId, Long otherId) {
+        long[] a = getFriends(userId);
+        long[] b = getFriends(otherId);
+        long[] common = new long[Math.min(a.length, b.length)];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                common[count++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(common, count);
+    }
+
+    public void addUser(Long userId) {
+        users.add(userId);
+    }
+
+    public void addFriend(Long userId, Long friendId) {
+        friends.compute(userId, (id, current) -> insert(current, friendId));
+        followers.compute(friendId, (id, current) -> insert(current, userId));
+    }
+
+    public void removeFriend(Long userId, Long friendId) {
+        friends.computeIfPresent(userId, (id, current) -> delete(current, friendId));
+        followers.computeIfPresent(friendId, (id, current) -> delete(current, userId));
+    }
+
+    public void removeUser(Long userId) {
+        users.remove(userId);
+        for (long friendId : getFriends(userId)) {
+            followers.computeIfPresent(friendId, (id, current) -> delete(current, userId));
+        }
+        for (long followerId : followers.getOrDefault(userId, NONE)) {
+            friends.computeIfPresent(followerId, (id, current) -> delete(current, userId));
+        }
+        friends.remove(userId);
+        followers.remove(userId);
+    }
+
+    private static long[] insert(long[] current, long id) {
+        if (current == null) {
+            return new long[]{id};
+        }
+        int position = Arrays.binarySearch(current, id);
+        if (position >= 0) {
+            return current;
+        }
+        int insertAt = -position - 1;
+        long[] result = new long[current.length + 1];
+        System.arraycopy(current, 0, result, 0, insertAt);
+        result[insertAt] = id;
+        System.arraycopy(current, insertAt, result, insertAt + 1, current.length - insertAt);
+        return result;
+    }
+
+    private static long[] delete(long[] current, long id) {
+        int position = Arrays.binarySearch(current, id);
+        if (position < 0) {
+            return current;
+        }
+        if (current.length == 1) {
+            return null;
+        }
+        long[] result = new long[current.length - 1];
+        System.arraycopy(current, 0, result, 0, position);
+        System.arraycopy(current, position + 1, result, position, current.length - position - 1);
+        return result;
+    }
+
+    /**
+     * Growable id buffer for the rebuild, so each list is sorted once instead of copied on every edge.
+     */
+    private static final class Adjacency {
+        private long[] ids = new long[4];
+        private int size;
+
+        private void add(long id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        }
+
+        private long[] toSortedArray() {
+            long[] sorted = Arrays.copyOf(ids, size);
+            Arrays.sort(sorted);
+            return sorted;
+        }
+    }
+}
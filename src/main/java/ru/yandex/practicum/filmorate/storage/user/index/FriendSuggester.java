@@ -0,0 +1,100 @@
+package ru.yandex.practicum.filmorate.storage.user.index;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.film.index.UserLikesIndex;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * "People you may know": users two hops away in the friend graph, ranked by the number of mutual friends.
+ * The traversal samples at most {@link #MAX_FRIENDS} friends and {@link #MAX_FRIENDS_OF_FRIEND} of each of
+ * theirs, and stops expanding once the time budget is spent, returning what it has counted so far.
+ * With the likes boost, a shortlist is re-ranked by adding {@link #COMMON_LIKE_WEIGHT} per common liked film.
+ * The boost reads only like bitmaps already in memory, so it never queries the database; candidates whose
+ * likes are not loaded get no boost.
+ */
+@Slf4j
+@Component
+public class FriendSuggester {
+    private static final int MAX_FRIENDS = 500;
+    private static final int MAX_FRIENDS_OF_FRIEND = 200;
+    private static final int SHORTLIST_FACTOR = 3;
+    private static final double COMMON_LIKE_WEIGHT = 0.25;
+    private static final Comparator<Candidate> WORST_FIRST = Comparator.comparingDouble(Candidate::score)
+            .thenComparing(Comparator.comparingLong(Candidate::userId).reversed());
+
+    private final FriendGraph friendGraph;
+    private final UserLikesIndex userLikesIndex;
+    private final long budgetNanos;
+
+    public FriendSuggester(FriendGraph friendGraph,
+                           UserLikesIndex userLikesIndex,
+                           @Value("${filmorate.friends.suggestions.time-budget}") Duration timeBudget) {
+        this.friendGraph = friendGraph;
+        this.userLikesIndex = userLikesIndex;
+        this.budgetNanos = timeBudget.toNanos();
+    }
+
+    /**
+     * Up to {@code limit} suggested user ids, best first.
+     */
+    public List<Long> suggest(Long userId, int limit, boolean boostByLikes) {
+        long deadline = System.nanoTime() + budgetNanos;
+        long[] friends = friendGraph.sampleFriends(userId, MAX_FRIENDS);
+        LongIntCounter mutual = new LongIntCounter(friends.length * 16);
+        int expanded = 0;
+        for (long friendId : friends) {
+            if (System.nanoTime() > deadline) {
+                log.debug("Friend suggestions for user with id {} stopped after {} of {} friends",
+                        userId, expanded, friends.length);
+                break;
+            }
+            for (long candidate : friendGraph.sampleFriends(friendId, MAX_FRIENDS_OF_FRIEND)) {
+                if (candidate != userId && !friendGraph.isFriend(userId, candidate)) {
+                    mutual.increment(candidate);
+                }
+            }
+            expanded++;
+        }
+        log.debug("Counted {} friend suggestion candidates for user with id {}", mutual.size(), userId);
+
+        int shortlist = boostByLikes ? limit * SHORTLIST_FACTOR : limit;
+        List<Candidate> candidates = top(mutual, shortlist);
+        if (boostByLikes && !candidates.isEmpty()) {
+            Map<Long, Integer> commonLikes = userLikesIndex.getLoadedCommonCounts(userId,
+                    candidates.stream().map(Candidate::userId).toList());
+            candidates = candidates.stream()
+                    .map(candidate -> new Candidate(candidate.userId(), candidate.score()
+                            + COMMON_LIKE_WEIGHT * commonLikes.getOrDefault(candidate.userId(), 0)))
+                    .sorted(WORST_FIRST.reversed())
+                    .limit(limit)
+                    .toList();
+        }
+        return candidates.stream().map(Candidate::userId).toList();
+    }
+
+    private static List<Candidate> top(LongIntCounter counter, int limit) {
+        PriorityQueue<Candidate> top = new PriorityQueue<>(WORST_FIRST);
+        counter.forEach((candidate, count) -> {
+            top.add(new Candidate(candidate, count));
+            if (top.size() > limit) {
+                top.poll();
+            }
+        });
+        List<Candidate> best = new ArrayList<>(top.size());
+        while (!top.isEmpty()) {
+            best.add(top.poll());
+        }
+        return best.reversed();
+    }
+
+    private record Candidate(long userId, double score) {
+    }
+}
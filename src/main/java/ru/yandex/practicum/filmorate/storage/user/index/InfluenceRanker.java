@@ -0,0 +1,183 @@
+package ru.yandex.practicum.filmorate.storage.user.index;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * PageRank over the friendship graph: adding someone as a friend passes them a share of your influence.
+ * Incoming edges are laid out in CSR form (an offsets array into one array of source indexes), and each
+ * iteration pulls rank along them for all users in parallel on a fork-join pool, so memory stays at a few
+ * ints per edge and no locking is needed. Users without friends spread their rank evenly over everyone.
+ * Scores are normalised so the average user has 1, then written to the users table.
+ */
+@Slf4j
+@Component
+public class InfluenceRanker {
+    private static final double DAMPING = 0.85;
+    private static final double TOLERANCE = 1e-9;
+    private static final int MAX_ITERATIONS = 100;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final UserStorage userStorage;
+    private final ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+    private volatile Stats stats;
+
+    public InfluenceRanker(JdbcTemplate jdbcTemplate, UserStorage userStorage) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.userStorage = userStorage;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * Figures of the last completed run, or {@code null} before the first one.
+     */
+    public Stats getStats() {
+        return stats;
+    }
+
+    @Scheduled(fixedDelayString = "${filmorate.influence.interval}",
+            initialDelayString = "${filmorate.influence.initial-delay}")
+    public void rank() {
+        log.info("Computing user influence scores");
+        long started = System.currentTimeMillis();
+        long[] users = jdbcTemplate.queryForList("SELECT user_id FROM users ORDER BY user_id", Long.class)
+                .stream().mapToLong(Long::longValue).toArray();
+        if (users.length == 0) {
+            log.info("No users to rank");
+            return;
+        }
+        Graph graph = load(users);
+        int n = users.length;
+
+        double[] rank = new double[n];
+        double[] next = new double[n];
+        double[] share = new double[n];
+        Arrays.fill(rank, 1.0 / n);
+        int iterations = 0;
+        double delta = Double.MAX_VALUE;
+        long iterationNanos = 0;
+        while (iterations < MAX_ITERATIONS && delta > TOLERANCE) {
+            long iterationStarted = System.nanoTime();
+            double dangling = 0;
+            for (int u = 0; u < n; u++) {
+                if (graph.outDegree()[u] == 0) {
+                    dangling += rank[u];
+                    share[u] = 0;
+                } else {
+                    share[u] = rank[u] / graph.outDegree()[u];
+                }
+            }
+            double base = (1 - DAMPING) / n + DAMPING * dangling / n;
+            delta = iterate(graph, share, rank, next, base);
+            double[] swapped = rank;
+            rank = next;
+            next = swapped;
+            iterations++;
+            long elapsed = System.nanoTime() - iterationStarted;
+            iterationNanos += elapsed;
+            log.debug("Influence iteration {} took {} µs, L1 delta {}", iterations, elapsed / 1000, delta);
+        }
+
+        double[] scores = rank;
+        for (int u = 0; u < n; u++) {
+            scores[u] *= n;
+        }
+        userStorage.saveInfluence(users, scores);
+        boolean converged = delta <= TOLERANCE;
+        stats = new Stats(n, graph.sources().length, iterations, converged, delta,
+                iterationNanos / iterations / 1_000_000.0, System.currentTimeMillis() - started, Instant.now());
+        if (!converged) {
+            log.warn("Influence scores did not converge in {} iterations, L1 delta {}", iterations, delta);
+        }
+        log.info("Influence scores for {} users and {} edges computed in {} iterations and {} ms",
+                n, graph.sources().length, iterations, System.currentTimeMillis() - started);
+    }
+
+    /**
+     * One pull step for every user: next[v] = base + DAMPING · Σ share[u] over users u who added v.
+     * Returns the L1 distance between the old and new rank vectors.
+     */
+    private double iterate(Graph graph, double[] share, double[] rank, double[] next, double base) {
+        try {
+            return pool.submit(() -> IntStream.range(0, next.length).parallel().mapToDouble(v -> {
+                double sum = 0;
+                for (int e = graph.offsets()[v]; e < graph.offsets()[v + 1]; e++) {
+                    sum += share[graph.sources()[e]];
+                }
+                next[v] = base + DAMPING * sum;
+                return Math.abs(next[v] - rank[v]);
+            }).sum()).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Influence ranking interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Influence ranking failed", e.getCause());
+        }
+    }
+
+    /**
+     * Reads the friendship table into CSR form keyed by target, with a counting sort over the edges.
+     */
+    private Graph load(long[] users) {
+        Edges edges = new Edges();
+        jdbcTemplate.query("SELECT accepting_user_id, requesting_user_id FROM friendship", rs -> {
+            int source = Arrays.binarySearch(users, rs.getLong("accepting_user_id"));
+            int target = Arrays.binarySearch(users, rs.getLong("requesting_user_id"));
+            if (source >= 0 && target >= 0) {
+                edges.add(source, target);
+            }
+        });
+        int[] offsets = new int[users.length + 1];
+        int[] outDegree = new int[users.length];
+        for (int e = 0; e < edges.size; e++) {
+            offsets[edges.to[e] + 1]++;
+            outDegree[edges.from[e]]++;
+        }
+        for (int v = 0; v < users.length; v++) {
+            offsets[v + 1] += offsets[v];
+        }
+        int[] sources = new int[edges.size];
+        int[] filled = Arrays.copyOf(offsets, users.length);
+        for (int e = 0; e < edges.size; e++) {
+            sources[filled[edges.to[e]]++] = edges.from[e];
+        }
+        return new Graph(offsets, sources, outDegree);
+    }
+
+    private static class Edges {
+        private int[] from = new int[1024];
+        private int[] to = new int[1024];
+        private int size;
+
+        private void add(int source, int target) {
+            if (size == from.length) {
+                from = Arrays.copyOf(from, size * 2);
+                to = Arrays.copyOf(to, size * 2);
+            }
+            from[size] = source;
+            to[size] = target;
+            size++;
+        }
+    }
+
+    private record Graph(int[] offsets, int[] sources, int[] outDegree) {
+    }
+
+    public record Stats(int users, int edges, int iterations, boolean converged, double delta,
+                        double averageIterationMillis, long totalMillis, Instant finishedAt) {
+    }
+}
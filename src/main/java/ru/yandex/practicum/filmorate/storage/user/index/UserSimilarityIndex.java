@@ -0,0 +1,238 @@
+package ru.yandex.practicum.filmorate.storage.user.index;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.film.index.FilmChangeListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * MinHash signatures of each user's liked films with LSH banding: users whose signatures agree on
+ * every row of at least one band land in the same bucket, and only those are compared.
+ * Agreement over all {@link #HASHES} slots estimates the Jaccard similarity of the two like sets.
+ * Liked films are kept as sorted primitive arrays so an unlike can recompute the signature.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UserSimilarityIndex implements FilmChangeListener {
+    private static final int BANDS = 16;
+    private static final int ROWS = 4;
+    private static final int HASHES = BANDS * ROWS;
+    private static final long[] SEEDS = new long[HASHES];
+
+    static {
+        long seed = 0x2545F4914F6CDD1DL;
+        for (int i = 0; i < HASHES; i++) {
+            seed ^= seed << 13;
+            seed ^= seed >>> 7;
+            seed ^= seed << 17;
+            SEEDS[i] = seed;
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, long[]> likes = new HashMap<>();
+    private final Map<Long, int[]> signatures = new HashMap<>();
+    private final Map<Long, Set<Long>> buckets = new HashMap<>();
+
+    @PostConstruct
+    public void rebuild() {
+        log.info("Rebuilding user similarity index");
+        Map<Long, List<Long>> loaded = new HashMap<>();
+        jdbcTemplate.query("SELECT user_id, film_id FROM likes", rs -> {
+            loaded.computeIfAbsent(rs.getLong("user_id"), id -> new ArrayList<>()).add(rs.getLong("film_id"));
+        });
+        lock.writeLock().lock();
+        try {
+            likes.clear();
+            signatures.clear();
+            buckets.clear();
+            loaded.forEach((userId, filmIds) -> {
+                long[] sorted = filmIds.stream().mapToLong(Long::longValue).sorted().toArray();
+                likes.put(userId, sorted);
+                link(userId, signature(sorted));
+            });
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("User similarity index built for {} users", loaded.size());
+    }
+
+    /**
+     * Up to {@code limit} users with the highest estimated Jaccard similarity, most similar first.
+     */
+    public List<Long> getSimilar(Long userId, int limit) {
+        PriorityQueue<Neighbour> top = new PriorityQueue<>(Comparator.comparingDouble(Neighbour::similarity)
+                .thenComparing(Comparator.comparingLong(Neighbour::userId).reversed()));
+        lock.readLock().lock();
+        try {
+            int[] signature = signatures.get(userId);
+            if (signature == null) {
+                return List.of();
+            }
+            Set<Long> candidates = new HashSet<>();
+            for (int band = 0; band < BANDS; band++) {
+                candidates.addAll(buckets.getOrDefault(bandKey(signature, band), Set.of()));
+            }
+            candidates.remove(userId);
+            for (Long candidate : candidates) {
+                int[] other = signatures.get(candidate);
+                int equal = 0;
+                for (int i = 0; i < HASHES; i++) {
+                    if (signature[i] == other[i]) {
+                        equal++;
+                    }
+                }
+                top.add(new Neighbour(candidate, (double) equal / HASHES));
+                if (top.size() > limit) {
+                    top.poll();
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        List<Long> ids = new ArrayList<>(top.size());
+        while (!top.isEmpty()) {
+            ids.add(top.poll().userId());
+        }
+        return ids.reversed();
+    }
+
+    @Override
+    public void onFilmDeleted(Long filmId) {
+        lock.writeLock().lock();
+        try {
+            for (Long userId : new ArrayList<>(likes.keySet())) {
+                if (Arrays.binarySearch(likes.get(userId), filmId) >= 0) {
+                    update(userId, filmId, false);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onLikeAdded(Long filmId, Long userId) {
+        lock.writeLock().lock();
+        try {
+            update(userId, filmId, true);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onLikeRemoved(Long filmId, Long userId) {
+        lock.writeLock().lock();
+        try {
+            update(userId, filmId, false);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void update(Long userId, long filmId, boolean liked) {
+        long[] current = likes.getOrDefault(userId, new long[0]);
+        int position = Arrays.binarySearch(current, filmId);
+        if (liked == (position >= 0)) {
+            return;
+        }
+        long[] updated;
+        int[] signature = signatures.get(userId);
+        if (liked) {
+            int insertAt = -position - 1;
+            updated = new long[current.length + 1];
+            System.arraycopy(current, 0, updated, 0, insertAt);
+            updated[insertAt] = filmId;
+            System.arraycopy(current, insertAt, updated, insertAt + 1, current.length - insertAt);
+            int[] next = signature == null ? signature(updated) : signature.clone();
+            for (int i = 0; i < HASHES; i++) {
+                next[i] = Math.min(next[i], hash(filmId, i));
+            }
+            unlink(userId, signature);
+            link(userId, next);
+        } else {
+            updated = new long[current.length - 1];
+            System.arraycopy(current, 0, updated, 0, position);
+            System.arraycopy(current, position + 1, updated, position, current.length - position - 1);
+            unlink(userId, signature);
+            if (updated.length > 0) {
+                link(userId, signature(updated));
+            }
+        }
+        if (updated.length == 0) {
+            likes.remove(userId);
+        } else {
+            likes.put(userId, updated);
+        }
+    }
+
+    private void link(Long userId, int[] signature) {
+        signatures.put(userId, signature);
+        for (int band = 0; band < BANDS; band++) {
+            buckets.computeIfAbsent(bandKey(signature, band), key -> new HashSet<>()).add(userId);
+        }
+    }
+
+    private void unlink(Long userId, int[] signature) {
+        if (signature == null) {
+            return;
+        }
+        signatures.remove(userId);
+        for (int band = 0; band < BANDS; band++) {
+            long key = bandKey(signature, band);
+            Set<Long> bucket = buckets.get(key);
+            if (bucket != null && bucket.remove(userId) && bucket.isEmpty()) {
+                buckets.remove(key);
+            }
+        }
+    }
+
+    private static int[] signature(long[] filmIds) {
+        int[] signature = new int[HASHES];
+        Arrays.fill(signature, Integer.MAX_VALUE);
+        for (long filmId : filmIds) {
+            for (int i = 0; i < HASHES; i++) {
+                signature[i] = Math.min(signature[i], hash(filmId, i));
+            }
+        }
+        return signature;
+    }
+
+    /**
+     * SplitMix64 finaliser of the film id mixed with the i-th seed, kept non-negative.
+     */
+    private static int hash(long filmId, int i) {
+        long z = filmId ^ SEEDS[i];
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return (int) ((z ^ (z >>> 31)) >>> 33);
+    }
+
+    private static long bandKey(int[] signature, int band) {
+        long key = band;
+        for (int row = band * ROWS; row < (band + 1) * ROWS; row++) {
+            key = key * 0x9E3779B97F4A7C15L + signature[row];
+        }
+        return key;
+    }
+
+    private record Neighbour(long userId, double similarity) {
+    }
+}
@@ -0,0 +1,19 @@
+package ru.yandex.practicum.filmorate.util;
+
+import java.text.Normalizer;
+import java.util.Locale;
+
+public class TextUtil {
+
+    private TextUtil() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    public static String fold(String text) {
+        if (text == null) {
+            return "";
+        }
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFKC);
+        return normalized.toUpperCase(Locale.ROOT).toLowerCase(Locale.ROOT).replace('ё', 'е');
+    }
+}
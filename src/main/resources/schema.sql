@@ -31,10 +31,13 @@ CREATE TABLE IF NOT EXISTS users (
   user_login VARCHAR(40),
   user_email VARCHAR(128),
   user_birthday TIMESTAMP,
+  influence DOUBLE NOT NULL DEFAULT 0,
   CONSTRAINT user_id_pk PRIMARY KEY (user_id),
   CONSTRAINT unique_email UNIQUE (user_email)
 );
 
+CREATE INDEX IF NOT EXISTS users_influence_idx ON users (influence DESC, user_id);
+
 CREATE TABLE IF NOT EXISTS films (
     film_id BIGINT NOT NULL GENERATED BY DEFAULT AS IDENTITY,
     film_name VARCHAR(256),
@@ -42,15 +45,21 @@ CREATE TABLE IF NOT EXISTS films (
     film_duration BIGINT,
     film_releaseDate TIMESTAMP,
     mpa_id BIGINT REFERENCES mpa (mpa_id),
+    like_count BIGINT NOT NULL DEFAULT 0,
     CONSTRAINT film_id_pk PRIMARY KEY (film_id)
 );
 
+CREATE INDEX IF NOT EXISTS films_like_count_idx ON films (like_count DESC, film_id);
+
 CREATE TABLE IF NOT EXISTS likes (
     film_id BIGINT REFERENCES films (film_id) ON DELETE CASCADE,
     user_id BIGINT REFERENCES users (user_id) ON DELETE CASCADE,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
     CONSTRAINT likes_pk PRIMARY KEY (film_id, user_id)
 );
 
+CREATE INDEX IF NOT EXISTS likes_created_at_idx ON likes (created_at);
+
 CREATE TABLE IF NOT EXISTS film_directors (
     film_id BIGINT REFERENCES films (film_id) ON DELETE CASCADE,
     director_id BIGINT REFERENCES directors (director_id) ON DELETE CASCADE,
@@ -97,4 +106,6 @@ CREATE TABLE events (
     operation VARCHAR(10) NOT NULL,
     entity_id BIGINT NOT NULL,
     FOREIGN KEY (user_id) REFERENCES users(user_id) ON DELETE CASCADE
-);
\ No newline at end of file
+);
+
+CREATE INDEX IF NOT EXISTS events_user_event_idx ON events (user_id, event_id);
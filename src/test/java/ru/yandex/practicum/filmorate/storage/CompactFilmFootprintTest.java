@@ -0,0 +1,131 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.mapper.ReferenceDictionary;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.film.CompactFilm;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Counts the bytes a cached film holds on its own, leaving out the strings and reference objects
+ * that both forms share. Sizes follow the 64-bit HotSpot layout with compressed references:
+ * a 12-byte object header, a 16-byte array header, 4-byte references and 8-byte alignment.
+ * Field lists are read from the classes, so the figures follow the running JDK.
+ */
+class CompactFilmFootprintTest {
+    private static final int OBJECT_HEADER = 12;
+    private static final int ARRAY_HEADER = 16;
+    private static final int REFERENCE = 4;
+
+    private final ReferenceDictionary references = new ReferenceDictionary();
+
+    @Test
+    void shouldHoldAFractionOfTheFilmBytes() throws ClassNotFoundException {
+        Film film = Film.builder()
+                .id(1000L)
+                .name("test")
+                .description("testDescription")
+                .duration(135L)
+                .releaseDate(LocalDate.of(2000, 1, 1))
+                .mpa(references.mpa(1, "G"))
+                .likeCount(250L)
+                .genres(new LinkedHashSet<>(List.of(references.genre(2, "Драма"),
+                        references.genre(1, "Комедия"))))
+                .directors(new LinkedHashSet<>(List.of(references.director(1L, "Director"))))
+                .build();
+        CompactFilm compact = CompactFilm.of(film);
+        assertEquals(film, compact.toFilm(references));
+
+        long filmBytes = shallow(Film.class)
+                + 3 * shallow(Long.class)
+                + shallow(LocalDate.class)
+                + linkedHashSet(film.getGenres().size())
+                + linkedHashSet(film.getDirectors().size());
+        long compactBytes = shallow(CompactFilm.class)
+                + array(int.class, film.getGenres().size())
+                + array(long.class, film.getDirectors().size());
+
+        assertTrue(compactBytes * 3 <= filmBytes, "compact=" + compactBytes + " film=" + filmBytes);
+    }
+
+    @Test
+    void shouldFollowTheAssumedLayout() {
+        assertEquals(24, shallow(Long.class));
+        assertEquals(24, shallow(LocalDate.class));
+        assertEquals(24, array(int.class, 2));
+        assertEquals(24, array(long.class, 1));
+        assertEquals(16, array(long.class, 0));
+    }
+
+    /**
+     * A set built by {@link LinkedHashSet#newLinkedHashSet} for {@code size} elements, as {@link CompactFilm#toFilm}
+     * does: the set, its map, the table once an element is added, and one entry per element.
+     */
+    private static long linkedHashSet(int size) throws ClassNotFoundException {
+        long bytes = shallow(LinkedHashSet.class) + shallow(LinkedHashMap.class);
+        if (size > 0) {
+            bytes += array(Object.class, tableSizeFor((int) Math.ceil(size / 0.75)));
+        }
+        return bytes + size * shallow(Class.forName("java.util.LinkedHashMap$Entry"));
+    }
+
+    private static int tableSizeFor(int capacity) {
+        return capacity <= 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+    }
+
+    /**
+     * Fields are packed after the header; 8-byte fields start 8-aligned, so the 4 bytes after the header
+     * stay empty unless smaller fields fill them.
+     */
+    private static long shallow(Class<?> type) {
+        long small = 0;
+        long wide = 0;
+        for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+            for (Field field : c.getDeclaredFields()) {
+                if (!Modifier.isStatic(field.getModifiers())) {
+                    int size = size(field.getType());
+                    if (size == 8) {
+                        wide += size;
+                    } else {
+                        small += size;
+                    }
+                }
+            }
+        }
+        long gap = wide > 0 && small < 4 ? 4 - small : 0;
+        return align(OBJECT_HEADER + gap + small + wide);
+    }
+
+    private static long array(Class<?> componentType, int length) {
+        return align(ARRAY_HEADER + (long) size(componentType) * length);
+    }
+
+    private static int size(Class<?> type) {
+        if (!type.isPrimitive()) {
+            return REFERENCE;
+        }
+        if (type == long.class || type == double.class) {
+            return 8;
+        }
+        if (type == int.class || type == float.class) {
+            return 4;
+        }
+        if (type == short.class || type == char.class) {
+            return 2;
+        }
+        return 1;
+    }
+
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7;
+    }
+}
@@ -0,0 +1,82 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.mapper.ReferenceDictionary;
+import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.storage.film.CompactFilm;
+
+import java.time.LocalDate;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CompactFilmTest {
+    private final ReferenceDictionary references = new ReferenceDictionary();
+
+    @Test
+    void shouldExpandBackToTheSameFilm() {
+        Film film = film(LocalDate.of(2000, 1, 1));
+
+        Film expanded = CompactFilm.of(film).toFilm(references);
+
+        assertEquals(film, expanded);
+        assertEquals(List.of(2, 1), expanded.getGenres().stream().map(Genre::getId).toList());
+    }
+
+    @Test
+    void shouldShareReferenceInstancesBetweenExpandedFilms() {
+        CompactFilm compact = CompactFilm.of(film(LocalDate.of(2000, 1, 1)));
+
+        Film first = compact.toFilm(references);
+        Film second = compact.toFilm(references);
+
+        assertTrue(first.getMpa() == second.getMpa());
+        assertTrue(first.getDirectors().iterator().next() == second.getDirectors().iterator().next());
+        assertTrue(first.getGenres() != second.getGenres());
+    }
+
+    @Test
+    void shouldKeepMissingReleaseDateAndEmptySets() {
+        Film film = film(null).toBuilder()
+                .genres(null)
+                .directors(null)
+                .build();
+
+        Film expanded = CompactFilm.of(film).toFilm(references);
+
+        assertNull(expanded.getReleaseDate());
+        assertTrue(expanded.getGenres().isEmpty());
+        assertTrue(expanded.getDirectors().isEmpty());
+    }
+
+    @Test
+    void shouldChangeOnlyLikeCount() {
+        CompactFilm compact = CompactFilm.of(film(LocalDate.of(2000, 1, 1)));
+
+        CompactFilm liked = compact.withLikeCount(4);
+
+        assertEquals(3L, compact.getLikeCount());
+        assertEquals(4L, liked.getLikeCount());
+        assertEquals(compact.toFilm(references).toBuilder().likeCount(4L).build(), liked.toFilm(references));
+    }
+
+    private Film film(LocalDate releaseDate) {
+        return Film.builder()
+                .id(1L)
+                .name("test")
+                .description("testDescription")
+                .duration(120L)
+                .releaseDate(releaseDate)
+                .mpa(references.mpa(1, "G"))
+                .likeCount(3L)
+                .genres(new LinkedHashSet<>(List.of(references.genre(2, "Драма"), references.genre(1, "Комедия"))))
+                .directors(new LinkedHashSet<>(List.of(references.director(1L, "Director"))))
+                .build();
+    }
+}
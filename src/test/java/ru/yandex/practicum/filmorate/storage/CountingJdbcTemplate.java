@@ -0,0 +1,52 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.StatementCallback;
+
+import javax.sql.DataSource;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * JdbcTemplate over the test database that counts the queries it runs and can run a hook just before each,
+ * for tests that check how often an index reads the database or what happens while it does.
+ * Both paths every query overload ends in are counted, plain and prepared statements alike.
+ */
+public class CountingJdbcTemplate extends JdbcTemplate {
+    private final AtomicInteger queries = new AtomicInteger();
+    private volatile Runnable beforeQuery = () -> {
+    };
+
+    public CountingJdbcTemplate(DataSource dataSource) {
+        super(dataSource);
+    }
+
+    public int getQueries() {
+        return queries.get();
+    }
+
+    /**
+     * Runs {@code hook} after a query is counted and before it reaches the database.
+     */
+    public void beforeQuery(Runnable hook) {
+        beforeQuery = hook;
+    }
+
+    @Override
+    public <T> T execute(StatementCallback<T> action) throws DataAccessException {
+        queries.incrementAndGet();
+        beforeQuery.run();
+        return super.execute(action);
+    }
+
+    @Override
+    public <T> T query(PreparedStatementCreator psc, PreparedStatementSetter pss, ResultSetExtractor<T> rse)
+            throws DataAccessException {
+        queries.incrementAndGet();
+        beforeQuery.run();
+        return super.query(psc, pss, rse);
+    }
+}
@@ -0,0 +1,202 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.CursorPage;
+import ru.yandex.practicum.filmorate.model.event.Event;
+import ru.yandex.practicum.filmorate.model.event.EventType;
+import ru.yandex.practicum.filmorate.model.event.OperationType;
+import ru.yandex.practicum.filmorate.storage.feed.FeedEventWriter;
+import ru.yandex.practicum.filmorate.storage.feed.FeedEventWriter.Durability;
+import ru.yandex.practicum.filmorate.storage.feed.FeedStorage;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FeedEventWriterTest {
+    private static final long BAD_USER = 13;
+
+    @Test
+    void shouldWriteEveryEventInBatches() throws Exception {
+        RecordingStorage storage = new RecordingStorage();
+        FeedEventWriter writer = writer(storage, 1000, Durability.FIRE_AND_FORGET);
+        for (long i = 1; i <= 500; i++) {
+            writer.write(event(BAD_USER + i));
+        }
+        writer.shutdown();
+
+        assertEquals(500, storage.written().size());
+        assertTrue(storage.batches() < 500, "batches=" + storage.batches());
+        assertEquals(500L, writer.getStats().written());
+        assertEquals(0, writer.getStats().queueDepth());
+    }
+
+    @Test
+    void shouldRetryFailedBatchOneByOneAndReportFailureWhenWaiting() throws Exception {
+        RecordingStorage storage = new RecordingStorage();
+        FeedEventWriter writer = writer(storage, 1000, Durability.WAIT_FOR_FLUSH);
+        writer.write(event(1));
+        assertThrows(IllegalArgumentException.class, () -> writer.write(event(BAD_USER)));
+        writer.write(event(2));
+        writer.shutdown();
+
+        assertEquals(List.of(1L, 2L), storage.written().stream().map(Event::getUserId).toList());
+        assertEquals(1L, writer.getStats().dropped());
+    }
+
+    @Test
+    void shouldWriteDirectlyWhenQueueStaysFull() throws Exception {
+        RecordingStorage storage = new RecordingStorage();
+        storage.block();
+        FeedEventWriter writer = writer(storage, 1, Durability.FIRE_AND_FORGET);
+        writer.write(event(1));
+        storage.awaitBlocked(1);
+        writer.write(event(2));
+        Thread releaser = new Thread(() -> {
+            storage.awaitBlocked(2);
+            storage.release();
+        });
+        releaser.start();
+        writer.write(event(3));
+        releaser.join();
+        writer.shutdown();
+
+        assertEquals(3, storage.written().size());
+        assertEquals(1L, writer.getStats().writtenDirectly());
+    }
+
+    @Test
+    void shouldNotLoseEventsWrittenConcurrentlyWithShutdown() throws Exception {
+        RecordingStorage storage = new RecordingStorage();
+        FeedEventWriter writer = writer(storage, 64, Durability.FIRE_AND_FORGET);
+        int threads = 8;
+        int perThread = 2000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch started = new CountDownLatch(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            long offset = (long) t * perThread;
+            futures.add(executor.submit(() -> {
+                started.countDown();
+                for (long i = 1; i <= perThread; i++) {
+                    writer.write(event(offset + i + BAD_USER));
+                }
+            }));
+        }
+        started.await();
+        writer.shutdown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        assertEquals(threads * perThread, storage.written().size());
+    }
+
+    private static FeedEventWriter writer(FeedStorage storage, int capacity, Durability durability) {
+        return new FeedEventWriter(storage, capacity, 100, Duration.ofMillis(2), Duration.ofMillis(200),
+                durability);
+    }
+
+    private static Event event(long userId) {
+        return Event.builder()
+                .timestamp(System.currentTimeMillis())
+                .userId(userId)
+                .eventType(EventType.FRIEND)
+                .operation(OperationType.ADD)
+                .entityId(1L)
+                .build();
+    }
+
+    /**
+     * Keeps written events in memory and rejects every batch containing an event of {@link #BAD_USER}.
+     * While blocked, writers wait at a gate and tests can wait until a given number of them are there.
+     */
+    private static class RecordingStorage implements FeedStorage {
+        private final List<Event> written = new ArrayList<>();
+        private final Object gate = new Object();
+        private boolean blocked;
+        private int waiting;
+        private int batches;
+
+        @Override
+        public void createAll(List<Event> events) {
+            synchronized (gate) {
+                waiting++;
+                gate.notifyAll();
+                while (blocked) {
+                    await();
+                }
+                waiting--;
+            }
+            if (events.stream().anyMatch(event -> event.getUserId() == BAD_USER)) {
+                throw new IllegalArgumentException("Unknown user");
+            }
+            synchronized (written) {
+                written.addAll(events);
+                batches++;
+            }
+        }
+
+        @Override
+        public List<Event> get(Long userId) {
+            return List.of();
+        }
+
+        @Override
+        public CursorPage<Event> getPage(Long userId, Long before, Long since, Set<EventType> types, int limit) {
+            return new CursorPage<>(List.of(), null);
+        }
+
+        private void block() {
+            synchronized (gate) {
+                blocked = true;
+            }
+        }
+
+        private void awaitBlocked(int writers) {
+            synchronized (gate) {
+                while (waiting < writers) {
+                    await();
+                }
+            }
+        }
+
+        private void release() {
+            synchronized (gate) {
+                blocked = false;
+                gate.notifyAll();
+            }
+        }
+
+        private void await() {
+            try {
+                gate.wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private List<Event> written() {
+            synchronized (written) {
+                return List.copyOf(written);
+            }
+        }
+
+        private int batches() {
+            synchronized (written) {
+                return batches;
+            }
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import ru.yandex.practicum.filmorate.model.CursorPage;
+import ru.yandex.practicum.filmorate.model.event.Event;
+import ru.yandex.practicum.filmorate.model.event.EventType;
+import ru.yandex.practicum.filmorate.model.event.OperationType;
+import ru.yandex.practicum.filmorate.storage.feed.FeedStorageDb;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@JdbcTest
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@ContextConfiguration(classes = {FeedStorageDb.class})
+class FeedStorageDbTest {
+    private final FeedStorageDb feedStorage;
+    private final JdbcTemplate jdbcTemplate;
+    private long userId;
+    private long otherUserId;
+
+    @BeforeEach
+    void createEvents() {
+        userId = createUser("reader@yandex.ru");
+        otherUserId = createUser("other@yandex.ru");
+        createEvent(userId, 100, EventType.FRIEND, 1);
+        createEvent(userId, 200, EventType.LIKE, 2);
+        createEvent(otherUserId, 250, EventType.LIKE, 3);
+        createEvent(userId, 300, EventType.FRIEND, 4);
+        createEvent(userId, 400, EventType.LIKE, 5);
+        createEvent(userId, 500, EventType.REVIEW, 6);
+    }
+
+    @Test
+    void shouldPageNewestFirstWithKeysetCursor() {
+        CursorPage<Event> first = feedStorage.getPage(userId, null, null, null, 2);
+        assertEquals(List.of(6L, 5L), entityIds(first));
+
+        CursorPage<Event> second = feedStorage.getPage(userId, Long.valueOf(first.nextCursor()), null, null, 2);
+        assertEquals(List.of(4L, 2L), entityIds(second));
+
+        CursorPage<Event> last = feedStorage.getPage(userId, Long.valueOf(second.nextCursor()), null, null, 2);
+        assertEquals(List.of(1L), entityIds(last));
+        assertNull(last.nextCursor());
+    }
+
+    @Test
+    void shouldNotReturnCursorWhenPageIsExactlyFull() {
+        CursorPage<Event> page = feedStorage.getPage(userId, null, null, null, 5);
+
+        assertEquals(List.of(6L, 5L, 4L, 2L, 1L), entityIds(page));
+        assertNull(page.nextCursor());
+    }
+
+    @Test
+    void shouldFilterPagesByTypeAndTimestamp() {
+        CursorPage<Event> likes = feedStorage.getPage(userId, null, null, Set.of(EventType.LIKE), 1);
+        assertEquals(List.of(5L), entityIds(likes));
+        CursorPage<Event> olderLikes = feedStorage.getPage(userId, Long.valueOf(likes.nextCursor()), null,
+                Set.of(EventType.LIKE), 1);
+        assertEquals(List.of(2L), entityIds(olderLikes));
+        assertNull(olderLikes.nextCursor());
+
+        CursorPage<Event> recent = feedStorage.getPage(userId, null, 300L,
+                Set.of(EventType.FRIEND, EventType.REVIEW), 10);
+        assertEquals(List.of(6L, 4L), entityIds(recent));
+        assertNull(recent.nextCursor());
+    }
+
+    private long createUser(String email) {
+        jdbcTemplate.update("INSERT INTO users (user_name, user_login, user_email) VALUES (?, ?, ?)",
+                "name", "login", email);
+        return jdbcTemplate.queryForObject("SELECT user_id FROM users WHERE user_email = ?", Long.class, email);
+    }
+
+    private static List<Long> entityIds(CursorPage<Event> page) {
+        return page.items().stream().map(Event::getEntityId).toList();
+    }
+
+    private void createEvent(long userId, long timestamp, EventType type, long entityId) {
+        jdbcTemplate.update("""
+                INSERT INTO events (user_id, timestamp, event_type, operation, entity_id)
+                VALUES (?, ?, ?, ?, ?)
+                """, userId, timestamp, type.name(), OperationType.ADD.name(), entityId);
+    }
+}
@@ -0,0 +1,155 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.storage.film.CompactFilm;
+import ru.yandex.practicum.filmorate.storage.film.FilmCache;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FilmCacheTest {
+    private static final long ID = 1;
+
+    private FilmCache cache = new FilmCache(100);
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void shouldNotPublishLoadThatRacedWithPatchOfUncachedFilm() {
+        cache.getAll(List.of(ID), ids -> {
+            loads.incrementAndGet();
+            cache.patch(ID, film -> film.withLikeCount(film.getLikeCount() + 1));
+            return Map.of(ID, film(3));
+        });
+        assertEquals(4L, likeCount(4));
+        assertEquals(2, loads.get());
+        assertEquals(4L, likeCount(99));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void shouldApplyPatchOnlyAfterCommit() {
+        assertEquals(3L, likeCount(3));
+        TransactionSynchronizationManager.initSynchronization();
+        cache.patch(ID, film -> film.withLikeCount(film.getLikeCount() + 1));
+        assertEquals(4L, likeCount(4));
+        assertEquals(2, loads.get());
+
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+        assertEquals(4L, likeCount(99));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void shouldKeepCachedFilmAfterRollback() {
+        assertEquals(3L, likeCount(3));
+        TransactionSynchronizationManager.initSynchronization();
+        cache.patch(ID, film -> film.withLikeCount(film.getLikeCount() + 1));
+
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+        assertEquals(3L, likeCount(99));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void shouldNotPublishLoadWhilePatchIsPending() {
+        TransactionSynchronizationManager.initSynchronization();
+        cache.patch(ID, film -> film.withLikeCount(film.getLikeCount() + 1));
+        assertEquals(3L, likeCount(3));
+        assertEquals(4L, likeCount(4));
+        assertEquals(2, loads.get());
+
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+        assertEquals(4L, likeCount(4));
+        assertEquals(4L, likeCount(99));
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void shouldKeepAtMostMaxFilmsLeastRecentlyUsedFirst() {
+        cache = new FilmCache(2);
+        assertEquals(3L, likeCount(1, 3));
+        assertEquals(3L, likeCount(2, 3));
+        assertEquals(3L, likeCount(1, 99));
+        assertEquals(3L, likeCount(3, 3));
+        assertEquals(3, loads.get());
+
+        assertEquals(3L, likeCount(1, 99));
+        assertEquals(4L, likeCount(2, 4));
+        assertEquals(4, loads.get());
+    }
+
+    @Test
+    void shouldNotEvictFilmWithPendingPatch() {
+        cache = new FilmCache(1);
+        assertEquals(3L, likeCount(1, 3));
+        TransactionSynchronizationManager.initSynchronization();
+        cache.patch(1L, film -> film.withLikeCount(film.getLikeCount() + 1));
+        assertEquals(3L, likeCount(2, 3));
+
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+        assertEquals(4L, likeCount(1, 99));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void shouldNotPublishLoadWhenAnEntryWrittenMeanwhileWasEvicted() {
+        cache = new FilmCache(1);
+        cache.getAll(List.of(ID), ids -> {
+            loads.incrementAndGet();
+            cache.invalidate(ID);
+            cache.invalidate(2L);
+            return Map.of(ID, film(ID, 3));
+        });
+        assertEquals(4L, likeCount(4));
+        assertEquals(2, loads.get());
+    }
+
+    private long likeCount(long loadedLikeCount) {
+        return likeCount(ID, loadedLikeCount);
+    }
+
+    private long likeCount(long id, long loadedLikeCount) {
+        return cache.getAll(List.of(id), ids -> {
+            loads.incrementAndGet();
+            return Map.of(id, film(id, loadedLikeCount));
+        }).get(id).getLikeCount();
+    }
+
+    private static void complete(int status) {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(synchronization -> synchronization.afterCompletion(status));
+    }
+
+    private static CompactFilm film(long likeCount) {
+        return film(ID, likeCount);
+    }
+
+    private static CompactFilm film(long id, long likeCount) {
+        return CompactFilm.of(Film.builder()
+                .id(id)
+                .name("test")
+                .description("testDescription")
+                .duration(120L)
+                .releaseDate(LocalDate.of(2000, 1, 1))
+                .mpa(new Mpa(1, "G"))
+                .likeCount(likeCount)
+                .build());
+    }
+}
@@ -5,14 +5,21 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ContextConfiguration;
 import ru.yandex.practicum.filmorate.mapper.FilmMapper;
+import ru.yandex.practicum.filmorate.mapper.ReferenceDictionary;
+import ru.yandex.practicum.filmorate.model.CursorPage;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.FilmCache;
+import ru.yandex.practicum.filmorate.storage.film.FilmQueryEngine;
 import ru.yandex.practicum.filmorate.storage.film.FilmStorageDb;
 import ru.yandex.practicum.filmorate.storage.user.UserStorageDb;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
@@ -21,9 +28,11 @@ import static org.junit.jupiter.api.Assertions.*;
 @JdbcTest
 @AutoConfigureTestDatabase
 @RequiredArgsConstructor(onConstructor_ = @Autowired)
-@ContextConfiguration(classes = {FilmStorageDb.class, UserStorageDb.class, FilmMapper.class})
+@ContextConfiguration(classes = {FilmStorageDb.class, UserStorageDb.class, FilmMapper.class, FilmCache.class,
+        FilmQueryEngine.class, ReferenceDictionary.class})
 class FilmStorageDbTest {
     private final FilmStorageDb filmStorageDb;
+    private final UserStorageDb userStorageDb;
 
     @Test
     void shouldBeCorrectfilmStorageDb() {
@@ -68,4 +77,34 @@ class FilmStorageDbTest {
         assertThat(film1).hasFieldOrPropertyWithValue("id", 1L);
         assertThat(film1).hasFieldOrPropertyWithValue("name", "Bronson");
     }
-}
\ No newline at end of file
+
+    @Test
+    @DirtiesContext
+    void shouldPageLikesAndKeepLikeCount() {
+        Film film = filmStorageDb.create(Film.builder()
+                .name("test")
+                .description("testDescription")
+                .duration(120L)
+                .releaseDate(LocalDate.now())
+                .mpa(new Mpa(1, "G"))
+                .build());
+        List<Long> userIds = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            User user = userStorageDb.create(User.builder()
+                    .email("user" + i + "@yandex.ru")
+                    .login("user" + i)
+                    .name("User " + i)
+                    .birthday(LocalDate.now())
+                    .build());
+            filmStorageDb.addLike(film.getId(), user.getId());
+            userIds.add(user.getId());
+        }
+        assertEquals(3L, filmStorageDb.getFilmById(film.getId()).getLikeCount());
+
+        CursorPage<Long> first = filmStorageDb.getLikes(film.getId(), null, 2);
+        assertEquals(userIds.subList(0, 2), first.items());
+        CursorPage<Long> second = filmStorageDb.getLikes(film.getId(), first.nextCursor(), 2);
+        assertEquals(userIds.subList(2, 3), second.items());
+        assertNull(second.nextCursor());
+    }
+}
@@ -0,0 +1,74 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import ru.yandex.practicum.filmorate.mapper.FilmMapper;
+import ru.yandex.practicum.filmorate.mapper.ReferenceDictionary;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.FilmCache;
+import ru.yandex.practicum.filmorate.storage.film.FilmQueryEngine;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorageDb;
+import ru.yandex.practicum.filmorate.storage.film.LikeCountReconciler;
+import ru.yandex.practicum.filmorate.storage.film.index.PopularityIndex;
+import ru.yandex.practicum.filmorate.storage.user.UserStorageDb;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@JdbcTest
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@ContextConfiguration(classes = {FilmStorageDb.class, UserStorageDb.class, FilmMapper.class, FilmCache.class,
+        FilmQueryEngine.class, ReferenceDictionary.class, LikeCountReconciler.class, PopularityIndex.class})
+class LikeCountReconcilerTest {
+    private final FilmStorageDb filmStorageDb;
+    private final UserStorageDb userStorageDb;
+    private final LikeCountReconciler likeCountReconciler;
+    private final FilmCache filmCache;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Test
+    void shouldCountEachLikeOnceAndRepairDrift() {
+        Film film = filmStorageDb.create(Film.builder()
+                .name("test")
+                .description("testDescription")
+                .duration(120L)
+                .releaseDate(LocalDate.now())
+                .mpa(new Mpa(1, "G"))
+                .build());
+        User user = userStorageDb.create(User.builder()
+                .email("grinch@yandex.ru")
+                .login("Grinch")
+                .name("Oleg")
+                .birthday(LocalDate.now())
+                .build());
+
+        filmStorageDb.addLike(film.getId(), user.getId());
+        filmStorageDb.addLike(film.getId(), user.getId());
+        assertEquals(1L, likeCount(film.getId()));
+
+        jdbcTemplate.update("UPDATE films SET like_count = 5 WHERE film_id = ?", film.getId());
+        filmCache.invalidate(film.getId());
+        assertEquals(5L, filmStorageDb.getFilmById(film.getId()).getLikeCount());
+        assertEquals(1, likeCountReconciler.reconcile());
+        assertEquals(1L, likeCount(film.getId()));
+        assertEquals(1L, filmStorageDb.getFilmById(film.getId()).getLikeCount());
+        assertEquals(0, likeCountReconciler.reconcile());
+
+        filmStorageDb.deleteLike(film.getId(), user.getId());
+        filmStorageDb.deleteLike(film.getId(), user.getId());
+        assertEquals(0L, likeCount(film.getId()));
+    }
+
+    private Long likeCount(Long filmId) {
+        return jdbcTemplate.queryForObject("SELECT like_count FROM films WHERE film_id = ?", Long.class, filmId);
+    }
+}
@@ -0,0 +1,94 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * Inserts rows with chosen ids for index tests. Users and films a row refers to are created on demand,
+ * so a test only spells out the rows it is about.
+ */
+@Component
+@RequiredArgsConstructor
+public class TestData {
+    private final JdbcTemplate jdbcTemplate;
+
+    public void user(long userId) {
+        if (!exists("SELECT COUNT(*) FROM users WHERE user_id = ?", userId)) {
+            jdbcTemplate.update("INSERT INTO users (user_id, user_name, user_login, user_email, user_birthday) "
+                            + "VALUES (?, ?, ?, ?, ?)",
+                    userId, "user" + userId, "user" + userId, "user" + userId + "@mail.ru", LocalDate.of(2000, 1, 1));
+        }
+    }
+
+    public void film(long filmId) {
+        if (!exists("SELECT COUNT(*) FROM films WHERE film_id = ?", filmId)) {
+            film(filmId, "film" + filmId, LocalDate.of(2000, 1, 1), 1);
+        }
+    }
+
+    public void film(long filmId, String name, LocalDate releaseDate, int mpaId) {
+        jdbcTemplate.update("MERGE INTO films (film_id, film_name, film_description, film_duration, "
+                        + "film_releaseDate, mpa_id) KEY (film_id) VALUES (?, ?, ?, ?, ?, ?)",
+                filmId, name, "description", 100, releaseDate, mpaId);
+    }
+
+    public void genre(long filmId, long genreId) {
+        film(filmId);
+        jdbcTemplate.update("INSERT INTO film_genres (film_id, genre_id) VALUES (?, ?)", filmId, genreId);
+    }
+
+    public void director(long filmId, long directorId) {
+        film(filmId);
+        if (!exists("SELECT COUNT(*) FROM directors WHERE director_id = ?", directorId)) {
+            jdbcTemplate.update("INSERT INTO directors (director_id, director_name) VALUES (?, ?)",
+                    directorId, "director" + directorId);
+        }
+        jdbcTemplate.update("INSERT INTO film_directors (film_id, director_id) VALUES (?, ?)", filmId, directorId);
+    }
+
+    /**
+     * Likes each film now and keeps {@code films.like_count} in step, as the storage does.
+     */
+    public void like(long userId, long... filmIds) {
+        for (long filmId : filmIds) {
+            likeAt(userId, filmId, Instant.now());
+        }
+    }
+
+    public void likeAt(long userId, long filmId, Instant likedAt) {
+        user(userId);
+        film(filmId);
+        jdbcTemplate.update("INSERT INTO likes (film_id, user_id, created_at) VALUES (?, ?, ?)",
+                filmId, userId, Timestamp.from(likedAt));
+        jdbcTemplate.update("UPDATE films SET like_count = like_count + 1 WHERE film_id = ?", filmId);
+    }
+
+    /**
+     * Records each friend as a friend of {@code userId}; the friendship is one-way, as it is in the storage.
+     */
+    public void friend(long userId, long... friendIds) {
+        user(userId);
+        for (long friendId : friendIds) {
+            user(friendId);
+            jdbcTemplate.update("INSERT INTO friendship (accepting_user_id, requesting_user_id, status) "
+                    + "VALUES (?, ?, 'unconfirmed')", userId, friendId);
+        }
+    }
+
+    public void review(long reviewId, long filmId, String content, int useful) {
+        user(1);
+        film(filmId);
+        jdbcTemplate.update("MERGE INTO reviews (review_id, content, is_positive, user_id, film_id, useful) "
+                + "KEY (review_id) VALUES (?, ?, ?, ?, ?, ?)", reviewId, content, true, 1L, filmId, useful);
+    }
+
+    private boolean exists(String sql, long id) {
+        Integer count = jdbcTemplate.queryForObject(sql, Integer.class, id);
+        return count != null && count > 0;
+    }
+}
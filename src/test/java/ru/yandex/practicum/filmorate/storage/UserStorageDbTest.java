@@ -5,9 +5,15 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ContextConfiguration;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.mapper.FilmMapper;
+import ru.yandex.practicum.filmorate.mapper.ReferenceDictionary;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.FilmCache;
+import ru.yandex.practicum.filmorate.storage.film.FilmQueryEngine;
 import ru.yandex.practicum.filmorate.storage.user.UserStorageDb;
 
 import java.time.LocalDate;
@@ -15,14 +21,17 @@ import java.util.List;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 
 @JdbcTest
 @AutoConfigureTestDatabase
 @RequiredArgsConstructor(onConstructor_ = @Autowired)
-@ContextConfiguration(classes = {UserStorageDb.class, FilmMapper.class})
+@ContextConfiguration(classes = {UserStorageDb.class, FilmMapper.class, FilmCache.class,
+        FilmQueryEngine.class, ReferenceDictionary.class})
 class UserStorageDbTest {
     private final UserStorageDb userStorage;
+    private final JdbcTemplate jdbcTemplate;
 
 
     @Test
@@ -62,4 +71,54 @@ class UserStorageDbTest {
         assertThat(user1).hasFieldOrPropertyWithValue("id", 1L);
         assertThat(user1).hasFieldOrPropertyWithValue("name", "NeOleg");
     }
-}
\ No newline at end of file
+
+    @Test
+    @DirtiesContext
+    void shouldOrderUsersByInfluence() {
+        User first = userStorage.create(User.builder()
+                .email("first@yandex.ru")
+                .login("First")
+                .birthday(LocalDate.now())
+                .build());
+        User second = userStorage.create(User.builder()
+                .email("second@yandex.ru")
+                .login("Second")
+                .birthday(LocalDate.now())
+                .build());
+        assertEquals(0.0, first.getInfluence());
+
+        userStorage.saveInfluence(new long[]{first.getId(), second.getId()}, new double[]{0.5, 1.5});
+
+        List<User> top = userStorage.getTopInfluencers(1);
+        assertEquals(1, top.size());
+        assertThat(top.get(0)).hasFieldOrPropertyWithValue("id", second.getId());
+        assertEquals(0.5, userStorage.getUserById(first.getId()).getInfluence());
+    }
+
+    @Test
+    @DirtiesContext
+    void shouldConfirmRepeatedFriendRequestAndRejectUnknownUser() {
+        User user = userStorage.create(User.builder()
+                .email("user@yandex.ru")
+                .login("User")
+                .birthday(LocalDate.now())
+                .build());
+        User friend = userStorage.create(User.builder()
+                .email("friend@yandex.ru")
+                .login("Friend")
+                .birthday(LocalDate.now())
+                .build());
+        final String statusQuery =
+                "SELECT status FROM friendship WHERE accepting_user_id = ? AND requesting_user_id = ?";
+
+        userStorage.addFriend(user.getId(), friend.getId());
+        assertEquals("unconfirmed",
+                jdbcTemplate.queryForObject(statusQuery, String.class, user.getId(), friend.getId()));
+        userStorage.addFriend(user.getId(), friend.getId());
+        assertEquals("confirmed",
+                jdbcTemplate.queryForObject(statusQuery, String.class, user.getId(), friend.getId()));
+
+        assertThrows(NotFoundException.class, () -> userStorage.addFriend(user.getId(), 999L));
+        assertThrows(NotFoundException.class, () -> userStorage.removeFriend(999L, friend.getId()));
+    }
+}
@@ -0,0 +1,115 @@
+package ru.yandex.practicum.filmorate.storage.film.index;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.model.Completion;
+import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AutocompleteIndexTest {
+    private final AutocompleteIndex index = new AutocompleteIndex(new JdbcTemplate());
+
+    @Test
+    void shouldCompletePrefixesInsideAndAcrossCollapsedEdges() {
+        save(1, "Interstellar");
+        save(2, "Inception");
+        save(3, "Insomnia");
+
+        assertEquals(List.of(1L, 2L, 3L), ids("in"));
+        assertEquals(List.of(1L), ids("inte"));
+        assertEquals(List.of(1L), ids("interstellar"));
+        assertEquals(List.of(2L), ids("INCEP"));
+        assertEquals(List.of(), ids("intx"));
+        assertEquals(List.of(), ids("interstellars"));
+        assertEquals(List.of(), ids("  "));
+    }
+
+    @Test
+    void shouldCompleteEveryWordAndRankByLikes() {
+        save(1, "The Dark Knight");
+        save(2, "Dark City");
+        like(2, 3);
+        like(1, 1);
+
+        assertEquals(List.of(2L, 1L), ids("dark"));
+        assertEquals(List.of(1L), ids("kni"));
+        assertEquals(List.of(2L), ids("dark", 1));
+
+        like(1, 3);
+        assertEquals(List.of(1L, 2L), ids("dark"));
+    }
+
+    @Test
+    void shouldScoreDirectorsByLikesOfTheirFilms() {
+        index.onDirectorSaved(new Director(7L, "Christopher Nolan"));
+        index.onDirectorSaved(new Director(8L, "Chris Columbus"));
+        save(1, "Memento", 7L);
+        like(1, 2);
+
+        List<Completion> completions = index.complete("chris", 10);
+        assertEquals(List.of(new Completion(Completion.Type.DIRECTOR, 7L, "Christopher Nolan"),
+                new Completion(Completion.Type.DIRECTOR, 8L, "Chris Columbus")), completions);
+        assertEquals(List.of(7L), ids("nol"));
+    }
+
+    @Test
+    void shouldForgetRenamedAndDeletedNamesAndMergeEdgesBack() {
+        save(1, "Alien");
+        save(2, "Aliens");
+        save(3, "Alibi");
+
+        save(2, "Predator");
+        assertEquals(List.of(1L, 3L), ids("ali"));
+        assertEquals(List.of(1L), ids("alie"));
+        assertEquals(List.of(2L), ids("pred"));
+
+        index.onFilmDeleted(3L);
+        assertEquals(List.of(1L), ids("al"));
+        assertEquals(List.of(), ids("alib"));
+
+        save(3, "Alibi");
+        save(4, "Ali");
+        assertEquals(List.of(1L, 3L, 4L), ids("ali"));
+        index.onFilmDeleted(4L);
+        assertEquals(List.of(1L, 3L), ids("ali"));
+        assertEquals(List.of(1L), ids("alien"));
+    }
+
+    @Test
+    void shouldKeepOnlyTopCompletions() {
+        for (long id = 1; id <= 15; id++) {
+            save(id, "Saw " + id);
+            like(id, (int) id);
+        }
+
+        assertEquals(List.of(15L, 14L, 13L, 12L, 11L, 10L, 9L, 8L, 7L, 6L), ids("saw"));
+        assertEquals(List.of(15L, 14L, 13L, 12L, 11L, 10L, 1L), ids("saw 1"));
+    }
+
+    private void save(long id, String name, Long... directorIds) {
+        LinkedHashSet<Director> directors = new LinkedHashSet<>();
+        for (Long directorId : directorIds) {
+            directors.add(new Director(directorId, null));
+        }
+        index.onFilmSaved(Film.builder().id(id).name(name).directors(directors).build());
+    }
+
+    private void like(long filmId, int times) {
+        for (int i = 0; i < times; i++) {
+            index.onLikeAdded(filmId, (long) i);
+        }
+    }
+
+    private List<Long> ids(String prefix) {
+        return ids(prefix, AutocompleteIndex.TOP_N);
+    }
+
+    private List<Long> ids(String prefix, int limit) {
+        return index.complete(prefix, limit).stream().map(Completion::id).toList();
+    }
+}
@@ -0,0 +1,101 @@
+package ru.yandex.practicum.filmorate.storage.film.index;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmFacets;
+import ru.yandex.practicum.filmorate.model.FilmFilter;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FilmFilterIndexTest {
+    private final FilmFilterIndex index = new FilmFilterIndex(new JdbcTemplate());
+
+    @Test
+    void shouldOrValuesWithinFacetAndAndFacetsTogether() {
+        save(1, 1, 1999, List.of(1, 2), 7L);
+        save(2, 2, 2005, List.of(2), 8L);
+        save(3, 1, 2010, List.of(3), 7L);
+
+        assertEquals(List.of(1L, 2L, 3L), index.filter(filter(List.of(1L, 2L, 3L), null, null, null, null, false)));
+        assertEquals(List.of(1L, 2L), index.filter(filter(List.of(2L), null, null, null, null, false)));
+        assertEquals(List.of(1L), index.filter(filter(List.of(1L, 2L), null, null, null, null, true)));
+        assertEquals(List.of(1L, 3L), index.filter(filter(null, List.of(1), null, null, null, false)));
+        assertEquals(List.of(2L, 3L), index.filter(filter(null, null, 2000, null, null, false)));
+        assertEquals(List.of(3L), index.filter(filter(null, List.of(1), 2000, 2020, List.of(7L), false)));
+        assertEquals(List.of(), index.filter(filter(null, null, 2020, 2000, null, false)));
+        assertEquals(List.of(), index.filter(filter(List.of(99L), null, null, null, null, false)));
+    }
+
+    @Test
+    void shouldCountFacetsOfMatchingFilms() {
+        save(1, 1, 1999, List.of(1, 2), 7L);
+        save(2, 2, 2005, List.of(2), 8L);
+        save(3, 1, 2010, List.of(3), 7L);
+
+        FilmFacets facets = index.facets(filter(null, List.of(1), null, null, null, false));
+        assertEquals(2, facets.total());
+        assertEquals(Map.of(1L, 1, 2L, 1, 3L, 1), facets.genres());
+        assertEquals(Map.of(1, 2), facets.mpa());
+        assertEquals(Map.of(1999, 1, 2010, 1), facets.years());
+        assertEquals(Map.of(7L, 2), facets.directors());
+    }
+
+    @Test
+    void shouldFollowFilmAndDirectorChanges() {
+        save(1, 1, 1999, List.of(1), 7L);
+        save(2, 1, 1999, List.of(1), 7L);
+
+        save(1, 2, 2001, List.of(2), 8L);
+        assertEquals(List.of(2L), index.filter(filter(List.of(1L), null, null, null, null, false)));
+        assertEquals(List.of(1L), index.filter(filter(null, null, null, null, List.of(8L), false)));
+
+        index.onFilmDeleted(2L);
+        assertEquals(List.of(), index.filter(filter(List.of(1L), null, null, null, null, false)));
+        index.onDirectorDeleted(8L);
+        assertEquals(List.of(), index.filter(filter(null, null, null, null, List.of(8L), false)));
+        assertEquals(1, index.facets(filter(null, null, null, null, null, false)).total());
+    }
+
+    @Test
+    void shouldIgnoreNullDirectorsAndGenres() {
+        Film film = Film.builder()
+                .id(1L)
+                .mpa(new Mpa(1, "G"))
+                .genres(new LinkedHashSet<>(Arrays.asList(null, new Genre(null, null), new Genre(1, null))))
+                .directors(new LinkedHashSet<>(Arrays.asList(null, new Director(null, "nobody"),
+                        new Director(7L, "director"))))
+                .build();
+
+        index.onFilmSaved(film);
+
+        assertEquals(List.of(1L), index.filter(filter(List.of(1L), null, null, null, List.of(7L), true)));
+        assertEquals(Map.of(7L, 1), index.facets(filter(null, null, null, null, null, false)).directors());
+    }
+
+    private void save(long id, int mpaId, int year, List<Integer> genreIds, Long directorId) {
+        LinkedHashSet<Genre> genres = new LinkedHashSet<>();
+        genreIds.forEach(genreId -> genres.add(new Genre(genreId, null)));
+        index.onFilmSaved(Film.builder()
+                .id(id)
+                .mpa(new Mpa(mpaId, null))
+                .releaseDate(LocalDate.of(year, 1, 1))
+                .genres(genres)
+                .directors(new LinkedHashSet<>(List.of(new Director(directorId, "director"))))
+                .build());
+    }
+
+    private static FilmFilter filter(List<Long> genreIds, List<Integer> mpaIds, Integer yearFrom, Integer yearTo,
+                                     List<Long> directorIds, boolean matchAll) {
+        return new FilmFilter(genreIds, mpaIds, yearFrom, yearTo, directorIds, matchAll);
+    }
+}
@@ -0,0 +1,89 @@
+package ru.yandex.practicum.filmorate.storage.film.index;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FilmSearchIndexTest {
+    private final PopularityIndex popularityIndex = new PopularityIndex(new JdbcTemplate());
+    private final FilmSearchIndex index = new FilmSearchIndex(new JdbcTemplate(), popularityIndex);
+
+    @Test
+    void shouldFindFoldedTitleSubstringsByPopularity() {
+        save(film(1, "Ёлки"), 1);
+        save(film(2, "Новые ЕЛКИ"), 3);
+        save(film(3, "Палки"), 2);
+
+        assertEquals(List.of(2L, 1L), index.search("елк", true, false, 10, 0));
+        assertEquals(List.of(1L), index.search("елк", true, false, 10, 1));
+        assertEquals(List.of(2L), index.search("ЁЛКИ", true, false, 1, 0));
+        assertEquals(List.of(2L, 3L, 1L), index.search("лк", true, false, 10, 0));
+        assertEquals(List.of(), index.search("елк", true, false, 10, 2));
+    }
+
+    @Test
+    void shouldVerifyCandidatesWithSubstringCheck() {
+        save(film(1, "abc bcd"), 0);
+        save(film(2, "xabcdx"), 0);
+
+        assertEquals(List.of(2L), index.search("abcd", true, false, 10, 0));
+        assertEquals(List.of(), index.search("abcz", true, false, 10, 0));
+    }
+
+    @Test
+    void shouldFollowFilmUpdatesAndDeletes() {
+        save(film(1, "Old title"), 0);
+        save(film(1, "New title"), 0);
+
+        assertEquals(List.of(), index.search("old", true, false, 10, 0));
+        assertEquals(List.of(1L), index.search("new", true, false, 10, 0));
+
+        index.onFilmDeleted(1L);
+        assertEquals(List.of(), index.search("title", true, false, 10, 0));
+    }
+
+    @Test
+    void shouldFindFilmsByDirectorName() {
+        index.onDirectorSaved(new Director(7L, "Christopher Nolan"));
+        save(film(1, "Memento", 7L), 1);
+        save(film(2, "Inception", 7L), 2);
+        save(film(3, "Nolan's dog"), 5);
+
+        assertEquals(List.of(2L, 1L), index.search("nolan", false, true, 10, 0));
+        assertEquals(List.of(3L, 2L, 1L), index.search("nolan", true, true, 10, 0));
+
+        index.onDirectorSaved(new Director(7L, "Chris N."));
+        assertEquals(List.of(), index.search("nolan", false, true, 10, 0));
+        assertEquals(List.of(2L, 1L), index.search("chris", false, true, 10, 0));
+
+        index.onDirectorDeleted(7L);
+        assertEquals(List.of(), index.search("chris", false, true, 10, 0));
+    }
+
+    private void save(Film film, long likes) {
+        popularityIndex.onFilmSaved(film);
+        for (long userId = 1; userId <= likes; userId++) {
+            popularityIndex.onLikeAdded(film.getId(), userId);
+        }
+        index.onFilmSaved(film);
+    }
+
+    private static Film film(long id, String name, Long... directorIds) {
+        return Film.builder()
+                .id(id)
+                .name(name)
+                .releaseDate(LocalDate.of(2000, 1, 1))
+                .directors(new LinkedHashSet<>(Arrays.stream(directorIds)
+                        .map(directorId -> new Director(directorId, "director"))
+                        .toList()))
+                .build();
+    }
+}
@@ -0,0 +1,72 @@
+package ru.yandex.practicum.filmorate.storage.film.index;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ItemSimilarityIndexTest {
+    private final ItemSimilarityIndex index = new ItemSimilarityIndex(new JdbcTemplate());
+
+    @Test
+    void shouldRankFilmsLikedTogetherWithUsersLikes() {
+        like(1, 10, 11, 12);
+        like(2, 10, 11);
+        like(3, 10, 13);
+        like(4, 13, 14, 15, 16);
+        like(5, 10);
+
+        assertEquals(List.of(11L, 12L, 13L), index.recommend(5L, 3));
+        assertEquals(List.of(11L), index.recommend(5L, 1));
+        assertEquals(List.of(), index.recommend(99L, 3));
+    }
+
+    @Test
+    void shouldForgetRemovedLikesAndDeletedFilms() {
+        like(1, 10, 11);
+        like(2, 10, 12);
+        like(3, 10);
+        assertEquals(List.of(11L, 12L), index.recommend(3L, 5));
+
+        index.onLikeRemoved(11L, 1L);
+        assertEquals(List.of(12L), index.recommend(3L, 5));
+        index.onFilmDeleted(12L);
+        assertEquals(List.of(), index.recommend(3L, 5));
+        assertEquals(Set.of(10L), index.getLikedFilms(2L));
+    }
+
+    @Test
+    void shouldLeaveHeavyUsersOutOfCoLikesUntilTheyDropBelowTheCap() {
+        for (long filmId = 1; filmId <= 301; filmId++) {
+            index.onLikeAdded(filmId, 1L);
+        }
+        like(2, 1, 2);
+        like(3, 1);
+        assertEquals(List.of(2L), index.recommend(3L, 5));
+
+        index.onLikeRemoved(301L, 1L);
+        assertEquals(5, index.recommend(3L, 5).size());
+        assertEquals(List.of(2L), index.recommend(3L, 1));
+
+        index.onLikeAdded(301L, 1L);
+        assertEquals(List.of(2L), index.recommend(3L, 5));
+    }
+
+    @Test
+    void shouldSumUserWeightsOverLikedFilms() {
+        like(1, 10, 11);
+        like(2, 11);
+
+        assertEquals(Map.of(10L, 0.5, 11L, 2.5), index.sumLikes(Map.of(1L, 0.5, 2L, 2.0)));
+    }
+
+    private void like(long userId, long... filmIds) {
+        for (long filmId : filmIds) {
+            index.onLikeAdded(filmId, userId);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package ru.yandex.practicum.filmorate.storage.film.index;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import ru.yandex.practicum.filmorate.storage.TestData;
+import ru.yandex.practicum.filmorate.storage.film.index.MatrixFactorizationModel.Factors;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@JdbcTest
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@ContextConfiguration(classes = TestData.class)
+class MatrixFactorizationTest {
+    private final JdbcTemplate jdbcTemplate;
+    private final TestData data;
+    private final MatrixFactorizationModel model = new MatrixFactorizationModel();
+    private Path dir;
+    private Path path;
+    private MatrixFactorizationTrainer trainer;
+
+    @BeforeEach
+    void start() throws IOException {
+        dir = Files.createTempDirectory("mf-model");
+        path = dir.resolve("model.bin");
+        trainer = new MatrixFactorizationTrainer(jdbcTemplate, model, path, 4, 10);
+    }
+
+    @AfterEach
+    void stop() throws IOException {
+        trainer.shutdown();
+        Files.deleteIfExists(path);
+        Files.deleteIfExists(dir);
+    }
+
+    @Test
+    void shouldRecommendFilmsLikedByUsersWithSimilarTaste() {
+        for (long userId = 1; userId <= 3; userId++) {
+            data.like(userId, 10, 11, 12);
+        }
+        for (long userId = 4; userId <= 6; userId++) {
+            data.like(userId, 20, 21, 22);
+        }
+        data.like(7, 10, 11);
+        data.like(8, 20);
+
+        trainer.train();
+
+        assertTrue(model.isLoaded());
+        assertEquals(Optional.of(List.of(12L)), model.recommend(7L, Set.of(10L, 11L), 1));
+        List<Long> forEight = model.recommend(8L, Set.of(20L), 2).orElseThrow();
+        assertEquals(Set.of(21L, 22L), Set.copyOf(forEight));
+        assertEquals(Optional.empty(), model.recommend(99L, Set.of(), 1));
+    }
+
+    @Test
+    void shouldLoadSavedModelOnStartup() {
+        data.like(1, 10, 11);
+        data.like(2, 11, 12);
+        trainer.train();
+
+        MatrixFactorizationModel restored = new MatrixFactorizationModel();
+        new MatrixFactorizationTrainer(jdbcTemplate, restored, path, 4, 10).loadSaved();
+
+        assertTrue(restored.isLoaded());
+        assertEquals(model.recommend(1L, Set.of(), 3), restored.recommend(1L, Set.of(), 3));
+    }
+
+    @Test
+    void shouldNotPublishModelWithoutLikes() {
+        trainer.train();
+        trainer.loadSaved();
+
+        assertFalse(model.isLoaded());
+        assertFalse(Files.exists(path));
+        assertEquals(Optional.empty(), model.recommend(1L, Set.of(), 1));
+    }
+
+    @Test
+    void shouldRankByDotProductAndRoundTripFactors() throws IOException {
+        Factors factors = new Factors(2, new long[]{1, 2}, new float[]{1, 0, 0, 1},
+                new long[]{10, 11, 12}, new float[]{3, 0, 1, 1, 0, 2});
+        model.publish(factors);
+
+        assertEquals(Optional.of(List.of(10L, 11L, 12L)), model.recommend(1L, Set.of(), 3));
+        assertEquals(Optional.of(List.of(12L, 11L)), model.recommend(2L, Set.of(), 2));
+        assertEquals(Optional.of(List.of(11L)), model.recommend(2L, Set.of(12L, 10L), 3));
+
+        MatrixFactorizationModel.save(factors, path);
+        Factors loaded = MatrixFactorizationModel.load(path);
+        assertEquals(2, loaded.rank());
+        assertArrayEquals(factors.userIds(), loaded.userIds());
+        assertArrayEquals(factors.userVectors(), loaded.userVectors());
+        assertArrayEquals(factors.filmIds(), loaded.filmIds());
+        assertArrayEquals(factors.filmVectors(), loaded.filmVectors());
+
+        Files.write(path, new byte[]{0, 0, 0, 0});
+        assertThrows(IOException.class, () -> MatrixFactorizationModel.load(path));
+    }
+}
@@ -0,0 +1,122 @@
+package ru.yandex.practicum.filmorate.storage.film.index;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RecommendationCacheTest {
+    private final AtomicInteger loads = new AtomicInteger();
+    private RecommendationCache cache = new RecommendationCache(2, Duration.ofMinutes(30), Duration.ofMinutes(5));
+
+    @AfterEach
+    void stop() throws Exception {
+        cache.shutdown();
+    }
+
+    @Test
+    void shouldServeCachedResultUntilUserLikesSomething() {
+        assertEquals(List.of(1L, 2L), get(1, "10", List.of(1L, 2L)));
+        assertEquals(List.of(1L, 2L), get(1, "10", List.of(3L)));
+        assertEquals(1, loads.get());
+
+        cache.onLikeAdded(5L, 1L);
+        assertEquals(List.of(3L), get(1, "10", List.of(3L)));
+        assertEquals(2, loads.get());
+        assertEquals(1L, cache.getStats().hits());
+        assertEquals(1L, cache.getStats().invalidations());
+    }
+
+    @Test
+    void shouldNotEvictUsersForEmptyResults() {
+        get(1, "10", List.of(1L));
+        get(2, "10", List.of(2L));
+        for (long unknown = 100; unknown < 110; unknown++) {
+            assertEquals(List.of(), get(unknown, "10", List.of()));
+        }
+        assertEquals(List.of(), get(100, "10", List.of()));
+
+        assertEquals(List.of(1L), get(1, "10", List.of(9L)));
+        assertEquals(List.of(2L), get(2, "10", List.of(9L)));
+        assertEquals(2, cache.getStats().users());
+        assertEquals(0L, cache.getStats().evictions());
+        assertEquals(13, loads.get());
+    }
+
+    @Test
+    void shouldKeepABoundedNumberOfVariantsPerUser() {
+        for (int count = 1; count <= 9; count++) {
+            get(1, String.valueOf(count), List.of((long) count));
+        }
+        assertEquals(9, loads.get());
+
+        assertEquals(List.of(9L), get(1, "9", List.of(0L)));
+        assertEquals(List.of(2L), get(1, "2", List.of(0L)));
+        assertEquals(9, loads.get());
+        assertEquals(List.of(0L), get(1, "1", List.of(0L)));
+        assertEquals(10, loads.get());
+    }
+
+    @Test
+    void shouldDropResultComputedAcrossAnInvalidation() {
+        get(1, "10", List.of(1L));
+        cache.invalidate(1L);
+        List<Long> raced = cache.get(1L, "10", () -> {
+            loads.incrementAndGet();
+            cache.onLikeRemoved(1L, 1L);
+            return List.of(2L);
+        });
+        assertEquals(List.of(2L), raced);
+
+        assertEquals(List.of(3L), get(1, "10", List.of(3L)));
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void shouldServeStaleEntryWhileRefreshingInBackground() throws Exception {
+        cache.shutdown();
+        ExecutorService refresher = Executors.newSingleThreadExecutor();
+        cache = new RecommendationCache(2, Duration.ofMinutes(30), Duration.ZERO, refresher);
+        get(1, "10", List.of(1L));
+
+        CountDownLatch refreshing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        assertEquals(List.of(1L), cache.get(1L, "10", () -> {
+            loads.incrementAndGet();
+            refreshing.countDown();
+            await(release);
+            return List.of(2L);
+        }));
+        refreshing.await();
+        assertEquals(List.of(1L), get(1, "10", List.of(9L)));
+        assertEquals(2, loads.get());
+
+        release.countDown();
+        refresher.submit(() -> {
+        }).get();
+        assertEquals(List.of(2L), get(1, "10", List.of(3L)));
+        assertEquals(3L, cache.getStats().staleHits());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private List<Long> get(long userId, String variant, List<Long> result) {
+        return cache.get(userId, variant, () -> {
+            loads.incrementAndGet();
+            return result;
+        });
+    }
+}
@@ -0,0 +1,142 @@
+package ru.yandex.practicum.filmorate.storage.film.index;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.storage.TestData;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@JdbcTest
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@ContextConfiguration(classes = TestData.class)
+class SimilarFilmsIndexTest {
+    private final JdbcTemplate jdbcTemplate;
+    private final TestData data;
+    private Path path;
+    private SimilarFilmsIndex index;
+
+    @BeforeEach
+    void start() throws IOException {
+        path = Files.createTempDirectory("similar-films").resolve("index.bin");
+        index = new SimilarFilmsIndex(jdbcTemplate, path);
+    }
+
+    @AfterEach
+    void stop() throws Exception {
+        index.shutdown();
+    }
+
+    @Test
+    void shouldRankFilmsSharingGenresAndDirectorFirst() {
+        save(1, 1, 7, 1, 2000);
+        save(2, 1, 7, 1, 2001);
+        save(3, 1, 8, 1, 2000);
+        save(4, 5, 9, 4, 1950);
+        index.init();
+
+        assertEquals(List.of(2L, 3L, 4L), index.getSimilar(1L, 3));
+        assertEquals(List.of(2L), index.getSimilar(1L, 1));
+        assertEquals(List.of(), index.getSimilar(99L, 3));
+    }
+
+    @Test
+    void shouldForgetDeletedFilmsAndCompactInBackground() throws Exception {
+        for (long id = 1; id <= 40; id++) {
+            index.onFilmSaved(film(id, (int) (id % 6), id % 5, (int) (id % 5) + 1, 1950 + (int) id));
+        }
+        for (long id = 1; id <= 15; id++) {
+            index.onFilmDeleted(id);
+        }
+        index.awaitCompaction();
+
+        SimilarFilmsIndex.Stats stats = index.getStats();
+        assertEquals(1, stats.compactions());
+        assertEquals(25, stats.films());
+        assertEquals(stats.films(), stats.nodes() - stats.tombstones());
+        List<Long> similar = index.getSimilar(20L, 24);
+        assertEquals(24, similar.size());
+        assertTrue(similar.stream().allMatch(id -> id > 15 && id != 20));
+    }
+
+    @Test
+    void shouldKeepChangesMadeWhileCompacting() throws Exception {
+        for (long id = 1; id <= 200; id++) {
+            index.onFilmSaved(film(id, (int) (id % 6), id % 5, (int) (id % 5) + 1, 1950 + (int) (id % 70)));
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            long offset = t * 50L;
+            futures.add(executor.submit(() -> {
+                for (long id = offset + 1; id <= offset + 50; id++) {
+                    index.onFilmSaved(film(id, (int) (id % 3), id % 7, 1, 2000));
+                    index.getSimilar(id, 5);
+                    if (id % 10 == 0) {
+                        index.onFilmDeleted(id);
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        index.awaitCompaction();
+
+        assertTrue(index.getStats().compactions() >= 1);
+        assertEquals(180, index.getStats().films());
+        for (long id = 1; id <= 200; id++) {
+            assertEquals(id % 10 != 0, !index.getSimilar(id, 1).isEmpty());
+            assertFalse(index.getSimilar(id, 10).stream().anyMatch(similar -> similar % 10 == 0));
+        }
+    }
+
+    @Test
+    void shouldSaveGraphToFile() {
+        index.onFilmSaved(film(1, 1, 7, 1, 2000));
+        index.save();
+        assertTrue(Files.exists(path));
+    }
+
+    private void save(long id, int genreId, long directorId, int mpaId, int year) {
+        data.film(id, "film " + id, LocalDate.of(year, 1, 1), mpaId);
+        data.genre(id, genreId);
+        data.director(id, directorId);
+    }
+
+    private static Film film(long id, int genreId, long directorId, int mpaId, int year) {
+        return Film.builder()
+                .id(id)
+                .name("film " + id)
+                .releaseDate(LocalDate.of(year, 1, 1))
+                .mpa(new Mpa(mpaId, null))
+                .genres(new LinkedHashSet<>(List.of(new Genre(genreId, null))))
+                .directors(new LinkedHashSet<>(List.of(new Director(directorId, "director"))))
+                .build();
+    }
+}
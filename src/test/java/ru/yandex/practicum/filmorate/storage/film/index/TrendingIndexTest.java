@@ -0,0 +1,101 @@
+package ru.yandex.practicum.filmorate.storage.film.index;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import ru.yandex.practicum.filmorate.storage.TestData;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@JdbcTest
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@ContextConfiguration(classes = TestData.class)
+class TrendingIndexTest {
+    private static final Duration DAY = Duration.ofDays(1);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TestData data;
+    private TrendingIndex index;
+
+    @BeforeEach
+    void createIndex() {
+        index = new TrendingIndex(jdbcTemplate, new PopularityIndex(jdbcTemplate), Duration.ofHours(24));
+    }
+
+    @Test
+    void shouldRankByDecayedLikeCount() {
+        data.likeAt(101, 1, hoursAgo(30));
+        data.likeAt(101, 2, hoursAgo(1));
+        data.likeAt(101, 3, hoursAgo(30));
+        data.likeAt(102, 3, hoursAgo(30));
+        data.likeAt(103, 3, hoursAgo(30));
+        index.rebuild();
+        index.onLikeAdded(1L, 10L);
+
+        assertEquals(List.of(1L, 3L, 2L), index.getTrending(Duration.ofDays(7), null, 5));
+        assertEquals(List.of(1L, 2L), index.getTrending(DAY, null, 5));
+        assertEquals(List.of(1L), index.getTrending(DAY, null, 1));
+    }
+
+    @Test
+    void shouldTakeRemovedLikeOffTheHourItWasMadeIn() {
+        data.likeAt(101, 1, hoursAgo(3));
+        index.rebuild();
+        index.onLikeAdded(2L, 10L);
+
+        index.onLikeRemoved(1L, 11L, hoursAgo(3));
+        assertEquals(List.of(2L), index.getTrending(DAY, null, 5));
+    }
+
+    @Test
+    void shouldIgnoreRemovedLikeOlderThanTheWindow() {
+        index.onLikeAdded(1L, 10L);
+        index.onLikeRemoved(1L, 11L, Instant.now().minus(Duration.ofDays(8)));
+        index.onLikeRemoved(2L, 11L, Instant.now().minus(Duration.ofDays(8)));
+
+        assertEquals(List.of(1L), index.getTrending(DAY, null, 5));
+    }
+
+    @Test
+    void shouldNotLoseLikeCountedWhileFilmIsDropped() throws Exception {
+        for (long filmId = 1; filmId <= 500; filmId++) {
+            index.onLikeAdded(filmId, 10L);
+            index.onLikeRemoved(filmId, 10L, Instant.now());
+            CyclicBarrier barrier = new CyclicBarrier(2);
+            long liked = filmId;
+            Thread liker = new Thread(() -> {
+                await(barrier);
+                index.onLikeAdded(liked, 11L);
+            });
+            liker.start();
+            await(barrier);
+            index.getTrending(DAY, null, 1);
+            liker.join();
+            assertEquals(List.of(filmId), index.getTrending(DAY, null, 1));
+            index.onFilmDeleted(filmId);
+        }
+    }
+
+    private static void await(CyclicBarrier barrier) {
+        try {
+            barrier.await();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Instant hoursAgo(long hours) {
+        return Instant.now().minus(Duration.ofHours(hours));
+    }
+}
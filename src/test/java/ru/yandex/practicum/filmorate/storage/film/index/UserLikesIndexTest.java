@@ -0,0 +1,175 @@
+package ru.yandex.practicum.filmorate.storage.film.index;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.storage.CountingJdbcTemplate;
+import ru.yandex.practicum.filmorate.storage.TestData;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@JdbcTest
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@ContextConfiguration(classes = TestData.class)
+class UserLikesIndexTest {
+    private final DataSource dataSource;
+    private final TestData data;
+
+    @Test
+    void shouldIntersectLikesAndFollowChanges() {
+        CountingJdbcTemplate jdbc = new CountingJdbcTemplate(dataSource);
+        UserLikesIndex index = index(jdbc, 10);
+        data.like(1, 10, 11, 12);
+        data.like(2, 11, 12, 13);
+        data.like(3, 13);
+
+        assertEquals(List.of(11L, 12L), index.getCommon(1L, 2L));
+        assertEquals(Map.of(2L, 2, 3L, 0), index.getCommonCounts(1L, List.of(2L, 3L)));
+
+        index.onLikeAdded(13L, 1L);
+        index.onLikeRemoved(11L, 2L);
+        assertEquals(List.of(12L, 13L), index.getCommon(1L, 2L));
+        index.onFilmDeleted(12L);
+        assertEquals(List.of(13L), index.getCommon(1L, 2L));
+        assertEquals(3, jdbc.getQueries());
+    }
+
+    @Test
+    void shouldReplayChangesThatArriveWhileLoading() {
+        CountingJdbcTemplate jdbc = new CountingJdbcTemplate(dataSource);
+        UserLikesIndex index = index(jdbc, 10);
+        data.like(1, 10, 11);
+        data.like(2, 10, 11, 12);
+        jdbc.beforeQuery(() -> {
+            if (jdbc.getQueries() == 1) {
+                index.onLikeAdded(12L, 1L);
+                index.onLikeRemoved(10L, 1L);
+            }
+        });
+
+        assertEquals(List.of(11L, 12L), index.getCommon(1L, 2L));
+    }
+
+    @Test
+    void shouldKeepAtMostMaxUsersLeastRecentlyUsedFirst() {
+        CountingJdbcTemplate jdbc = new CountingJdbcTemplate(dataSource);
+        UserLikesIndex index = index(jdbc, 2);
+        data.like(1, 10);
+        data.like(2, 10);
+        data.like(3, 10);
+
+        index.getCommon(1L, 2L);
+        index.getCommon(1L, 3L);
+        assertEquals(3, jdbc.getQueries());
+        index.getCommon(1L, 2L);
+        assertEquals(4, jdbc.getQueries());
+    }
+
+    @Test
+    void shouldLoadMissingFriendsInOneQueryWithoutKeepingThem() {
+        CountingJdbcTemplate jdbc = new CountingJdbcTemplate(dataSource);
+        UserLikesIndex index = index(jdbc, 2);
+        data.like(1, 10, 11);
+        data.like(2, 10);
+        data.like(3, 11);
+        data.like(4, 10, 11);
+
+        index.getCommon(1L, 2L);
+        assertEquals(Map.of(2L, 1, 3L, 1, 4L, 2), index.getCommonCounts(1L, List.of(2L, 3L, 4L)));
+        assertEquals(3, jdbc.getQueries());
+        assertEquals(Map.of(2L, 1), index.getLoadedCommonCounts(1L, List.of(2L, 3L, 4L)));
+        assertThrows(NotFoundException.class, () -> index.getCommonCounts(1L, List.of(3L, 99L)));
+    }
+
+    @Test
+    void shouldNotCacheUnknownUser() {
+        UserLikesIndex index = index(new CountingJdbcTemplate(dataSource), 10);
+        data.like(1, 10);
+
+        assertThrows(NotFoundException.class, () -> index.getCommon(1L, 99L));
+        data.like(99, 10);
+        assertEquals(List.of(10L), index.getCommon(1L, 99L));
+    }
+
+    @Test
+    void shouldCountOnlyLoadedUsersWithoutQuerying() {
+        CountingJdbcTemplate jdbc = new CountingJdbcTemplate(dataSource);
+        UserLikesIndex index = index(jdbc, 10);
+        data.like(1, 10, 11);
+        data.like(2, 10, 11);
+        data.like(3, 10);
+
+        assertEquals(Map.of(), index.getLoadedCommonCounts(1L, List.of(2L)));
+        index.getCommon(1L, 2L);
+        assertEquals(Map.of(2L, 2), index.getLoadedCommonCounts(1L, List.of(2L, 3L)));
+        assertEquals(2, jdbc.getQueries());
+    }
+
+    @Test
+    void shouldRejectFilmIdsBeyondTheBitmapRange() {
+        UserLikesIndex index = index(new CountingJdbcTemplate(dataSource), 10);
+        data.like(1, 10);
+        data.like(2, 10);
+        assertEquals(List.of(10L), index.getCommon(1L, 2L));
+
+        long beyond = Integer.MAX_VALUE + 1L;
+        data.like(2, beyond);
+        index.onLikeAdded(beyond, 2L);
+        index.onLikeRemoved(beyond, 1L);
+        index.onFilmDeleted(beyond);
+        assertThrows(IllegalArgumentException.class, () -> index.getCommon(1L, 2L));
+    }
+
+    @Test
+    @DirtiesContext
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void shouldLoadEachUserOnceUnderConcurrentReads() throws Exception {
+        CountingJdbcTemplate jdbc = new CountingJdbcTemplate(dataSource);
+        UserLikesIndex index = index(jdbc, 100);
+        for (long userId = 1; userId <= 20; userId++) {
+            data.like(userId, userId, userId + 1);
+        }
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (long userId = 1; userId < 20; userId++) {
+                    assertEquals(List.of(userId + 1), index.getCommon(userId, userId + 1));
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        assertEquals(20, jdbc.getQueries());
+    }
+
+    private static UserLikesIndex index(CountingJdbcTemplate jdbc, int maxUsers) {
+        return new UserLikesIndex(jdbc, new PopularityIndex(jdbc), maxUsers);
+    }
+}
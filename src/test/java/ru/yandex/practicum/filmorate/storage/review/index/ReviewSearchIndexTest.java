@@ -0,0 +1,86 @@
+package ru.yandex.practicum.filmorate.storage.review.index;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.storage.TestData;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@JdbcTest
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@ContextConfiguration(classes = TestData.class)
+class ReviewSearchIndexTest {
+    private final JdbcTemplate jdbcTemplate;
+    private final TestData data;
+    private ReviewSearchIndex index;
+
+    @BeforeEach
+    void createIndex() {
+        index = new ReviewSearchIndex(jdbcTemplate);
+    }
+
+    @Test
+    void shouldRankShortDocumentsAndRareTermsHigher() {
+        data.review(1, 1, "Great movie, great acting!", 0);
+        data.review(2, 1, "GREAT", 0);
+        data.review(3, 1, "Boring movie", 0);
+        index.rebuild();
+
+        assertEquals(List.of(2L, 1L), index.search("great", null, 10));
+        assertEquals(List.of(3L, 1L), index.search("boring movie", null, 10));
+        assertEquals(List.of(3L), index.search("boring movie", null, 1));
+        assertEquals(List.of(), index.search("!!!", null, 10));
+        assertEquals(List.of(), index.search("terrible", null, 10));
+    }
+
+    @Test
+    void shouldFilterByFilm() {
+        data.review(1, 1, "great film", 0);
+        data.review(2, 2, "great film", 0);
+        index.rebuild();
+
+        assertEquals(List.of(2L), index.search("great", 2L, 10));
+        assertEquals(List.of(1L, 2L), index.search("great", null, 10));
+    }
+
+    @Test
+    void shouldNudgeEqualMatchesByUsefulRating() {
+        data.review(1, 1, "great film", -3);
+        data.review(2, 1, "great film", 0);
+        data.review(3, 1, "great film", 10);
+        index.rebuild();
+
+        assertEquals(List.of(3L, 2L, 1L), index.search("great", null, 10));
+    }
+
+    @Test
+    @DirtiesContext
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void shouldReindexRefreshedReviewsInTheBackground() throws InterruptedException {
+        data.review(1, 1, "great film", 0);
+        data.review(2, 1, "awful film", 0);
+        index.rebuild();
+
+        data.review(1, 1, "awful remake", 0);
+        jdbcTemplate.update("DELETE FROM reviews WHERE review_id = ?", 2L);
+        index.refresh(1L);
+        index.refresh(2L);
+        index.shutdown();
+
+        assertEquals(List.of(), index.search("great", null, 10));
+        assertEquals(List.of(1L), index.search("awful", null, 10));
+        assertEquals(List.of(), index.search("film", null, 10));
+    }
+}
@@ -0,0 +1,111 @@
+package ru.yandex.practicum.filmorate.storage.user.index;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import ru.yandex.practicum.filmorate.storage.TestData;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@JdbcTest
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@ContextConfiguration(classes = TestData.class)
+class FriendGraphTest {
+    private final JdbcTemplate jdbcTemplate;
+    private final TestData data;
+    private FriendGraph graph;
+
+    @BeforeEach
+    void createGraph() {
+        graph = new FriendGraph(jdbcTemplate);
+    }
+
+    @Test
+    void shouldLoadSortedAdjacencyOnRebuild() {
+        data.friend(1, 4, 2);
+        data.friend(3, 2);
+        data.friend(1, 3);
+        data.friend(2, 1);
+        graph.rebuild();
+
+        assertTrue(graph.exists(4L));
+        assertFalse(graph.exists(5L));
+        assertArrayEquals(new long[]{2, 3, 4}, graph.getFriends(1L));
+        assertArrayEquals(new long[]{1}, graph.getFriends(2L));
+        assertArrayEquals(new long[]{}, graph.getFriends(4L));
+        assertTrue(graph.isFriend(3L, 2L));
+        assertFalse(graph.isFriend(2L, 3L));
+        assertArrayEquals(new long[]{2}, graph.getCommonFriends(1L, 3L));
+    }
+
+    @Test
+    void shouldKeepListsSortedAcrossUpdates() {
+        graph.addFriend(1L, 5L);
+        graph.addFriend(1L, 2L);
+        graph.addFriend(1L, 9L);
+        graph.addFriend(1L, 2L);
+        graph.addFriend(3L, 9L);
+        assertArrayEquals(new long[]{2, 5, 9}, graph.getFriends(1L));
+
+        graph.removeFriend(1L, 5L);
+        assertArrayEquals(new long[]{2, 9}, graph.getFriends(1L));
+        graph.removeUser(9L);
+        assertArrayEquals(new long[]{2}, graph.getFriends(1L));
+        assertArrayEquals(new long[]{}, graph.getFriends(3L));
+    }
+
+    @Test
+    void shouldSampleDistinctFriendsWithoutTouchingTheList() {
+        for (long friendId = 1; friendId <= 100; friendId++) {
+            graph.addFriend(0L, friendId);
+        }
+        long[] before = graph.getFriends(0L).clone();
+        long[] sample = graph.sampleFriends(0L, 10);
+
+        assertEquals(10, sample.length);
+        assertEquals(10L, Arrays.stream(sample).distinct().count());
+        assertTrue(Arrays.stream(sample).allMatch(id -> graph.isFriend(0L, id)));
+        assertArrayEquals(before, graph.getFriends(0L));
+        assertArrayEquals(before, graph.sampleFriends(0L, 100));
+    }
+
+    @Test
+    void shouldNotLoseConcurrentFriendAdds() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            long offset = t * 500L;
+            futures.add(executor.submit(() -> {
+                for (long friendId = offset + 1; friendId <= offset + 500; friendId++) {
+                    graph.addFriend(0L, friendId);
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        long[] friends = graph.getFriends(0L);
+        assertEquals(4000, friends.length);
+        for (int i = 0; i < friends.length; i++) {
+            assertEquals(i + 1L, friends[i]);
+        }
+    }
+}
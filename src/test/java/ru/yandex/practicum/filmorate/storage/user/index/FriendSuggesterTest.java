@@ -0,0 +1,98 @@
+package ru.yandex.practicum.filmorate.storage.user.index;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import ru.yandex.practicum.filmorate.storage.CountingJdbcTemplate;
+import ru.yandex.practicum.filmorate.storage.TestData;
+import ru.yandex.practicum.filmorate.storage.film.index.PopularityIndex;
+import ru.yandex.practicum.filmorate.storage.film.index.UserLikesIndex;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@JdbcTest
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@ContextConfiguration(classes = TestData.class)
+class FriendSuggesterTest {
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSource dataSource;
+    private final TestData data;
+    private FriendGraph graph;
+    private CountingJdbcTemplate likes;
+    private UserLikesIndex userLikesIndex;
+
+    @BeforeEach
+    void createIndexes() {
+        graph = new FriendGraph(jdbcTemplate);
+        likes = new CountingJdbcTemplate(dataSource);
+        userLikesIndex = new UserLikesIndex(likes, new PopularityIndex(likes), 100);
+    }
+
+    @Test
+    void shouldRankFriendsOfFriendsByMutualFriends() {
+        data.friend(1, 2, 3, 4);
+        data.friend(2, 1, 5, 6, 3);
+        data.friend(3, 5, 6);
+        data.friend(4, 5, 7);
+        graph.rebuild();
+
+        assertEquals(List.of(5L, 6L, 7L), suggester(Duration.ofSeconds(1)).suggest(1L, 10, false));
+        assertEquals(List.of(5L), suggester(Duration.ofSeconds(1)).suggest(1L, 1, false));
+        assertEquals(List.of(), suggester(Duration.ofSeconds(1)).suggest(7L, 10, false));
+    }
+
+    @Test
+    void shouldBoostByCommonLikesOnlyFromLoadedBitmaps() {
+        data.friend(1, 2, 3);
+        data.friend(2, 5, 6);
+        data.friend(3, 5, 6);
+        graph.rebuild();
+        data.like(1, 10, 11);
+        data.like(6, 10, 11);
+        FriendSuggester suggester = suggester(Duration.ofSeconds(1));
+
+        assertEquals(List.of(5L, 6L), suggester.suggest(1L, 10, true));
+        assertEquals(0, likes.getQueries());
+
+        userLikesIndex.getCommon(1L, 6L);
+        assertEquals(List.of(6L, 5L), suggester.suggest(1L, 10, true));
+        assertEquals(2, likes.getQueries());
+    }
+
+    @Test
+    void shouldReturnWhatWasCountedWhenBudgetIsSpent() {
+        data.friend(1, 2);
+        data.friend(2, 3);
+        graph.rebuild();
+
+        assertEquals(List.of(), suggester(Duration.ofNanos(-1)).suggest(1L, 10, false));
+    }
+
+    @Test
+    void shouldCountManyCandidates() {
+        for (long friendId = 2; friendId <= 40; friendId++) {
+            data.friend(1, friendId);
+            for (long candidate = 1000; candidate < 1000 + friendId; candidate++) {
+                data.friend(friendId, candidate);
+            }
+        }
+        graph.rebuild();
+
+        List<Long> suggested = suggester(Duration.ofSeconds(5)).suggest(1L, 3, false);
+        assertEquals(List.of(1000L, 1001L, 1002L), suggested);
+    }
+
+    private FriendSuggester suggester(Duration budget) {
+        return new FriendSuggester(graph, userLikesIndex, budget);
+    }
+}
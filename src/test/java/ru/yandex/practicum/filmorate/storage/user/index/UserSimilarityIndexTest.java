@@ -0,0 +1,94 @@
+package ru.yandex.practicum.filmorate.storage.user.index;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import ru.yandex.practicum.filmorate.storage.TestData;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@JdbcTest
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@ContextConfiguration(classes = TestData.class)
+class UserSimilarityIndexTest {
+    private final JdbcTemplate jdbcTemplate;
+    private final TestData data;
+
+    @Test
+    void shouldRankOverlappingUsersAndSkipDisjointOnes() {
+        data.like(1, range(1, 20));
+        data.like(2, range(1, 20));
+        data.like(3, range(1, 18));
+        data.like(3, 101, 102);
+        data.like(4, range(201, 220));
+        UserSimilarityIndex index = new UserSimilarityIndex(jdbcTemplate);
+        index.rebuild();
+
+        assertEquals(List.of(2L, 3L), index.getSimilar(1L, 10));
+        assertEquals(List.of(2L), index.getSimilar(1L, 1));
+        assertEquals(List.of(), index.getSimilar(4L, 10));
+        assertEquals(List.of(), index.getSimilar(99L, 10));
+    }
+
+    @Test
+    void shouldMatchRebuildAfterIncrementalLikes() {
+        UserSimilarityIndex index = new UserSimilarityIndex(jdbcTemplate);
+        for (long filmId = 1; filmId <= 20; filmId++) {
+            index.onLikeAdded(filmId, 1L);
+            index.onLikeAdded(filmId, 2L);
+            if (filmId <= 18) {
+                index.onLikeAdded(filmId, 3L);
+            }
+        }
+        index.onLikeAdded(101L, 3L);
+        index.onLikeAdded(102L, 3L);
+        index.onLikeAdded(102L, 3L);
+
+        data.like(1, range(1, 20));
+        data.like(2, range(1, 20));
+        data.like(3, range(1, 18));
+        data.like(3, 101, 102);
+        UserSimilarityIndex rebuilt = new UserSimilarityIndex(jdbcTemplate);
+        rebuilt.rebuild();
+
+        assertEquals(rebuilt.getSimilar(1L, 10), index.getSimilar(1L, 10));
+        assertEquals(rebuilt.getSimilar(3L, 10), index.getSimilar(3L, 10));
+    }
+
+    @Test
+    void shouldRecomputeSignatureOnUnlikeAndFilmDeletion() {
+        data.like(1, 1, 2, 3);
+        data.like(2, 1, 2, 3, 4);
+        data.like(3, 5);
+        UserSimilarityIndex index = new UserSimilarityIndex(jdbcTemplate);
+        index.rebuild();
+
+        index.onLikeRemoved(4L, 2L);
+        assertEquals(List.of(2L), index.getSimilar(1L, 10));
+
+        index.onLikeRemoved(5L, 3L);
+        index.onLikeRemoved(5L, 3L);
+        assertEquals(List.of(), index.getSimilar(3L, 10));
+
+        index.onFilmDeleted(1L);
+        index.onFilmDeleted(2L);
+        index.onFilmDeleted(3L);
+        assertEquals(List.of(), index.getSimilar(1L, 10));
+        assertEquals(List.of(), index.getSimilar(2L, 10));
+    }
+
+    private static long[] range(long from, long to) {
+        long[] range = new long[(int) (to - from + 1)];
+        for (int i = 0; i < range.length; i++) {
+            range[i] = from + i;
+        }
+        return range;
+    }
+}